@@ -0,0 +1,22 @@
+package com.scheduler;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Entry point of benchmarks.jar: the usual JMH command line, with the GC profiler always attached so
+// every run reports allocation rate (gc.alloc.rate.norm is bytes per operation).
+//   java -jar target/benchmarks.jar SchedulerModelBenchmark -p size=medium
+public class BenchmarkRunner {
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    Options opts = new OptionsBuilder()
+      .parent(new CommandLineOptions(args))
+      .addProfiler(GCProfiler.class)
+      .build();
+    new Runner(opts).run();
+  }
+}
@@ -0,0 +1,101 @@
+package com.scheduler;
+
+import java.util.*;
+
+// Seeded synthetic instances. Same seed and arguments give the same Config.
+//
+// Every course gets at least one qualified (and, for AP courses, certified) teacher and every room type
+// a course needs exists, so instances are infeasible only through availability and load, which the
+// densities control.
+public final class InstanceGenerator {
+  private static final double LAB_SHARE = 0.25;
+  private static final double AP_SHARE = 0.1;
+  private static final int ROOMS_PER_BUILDING = 10;
+
+  private final Random rnd;
+
+  public InstanceGenerator(long seed) {
+    this.rnd = new Random(seed);
+  }
+
+  // Named sizes used by the benchmarks
+  public static Config preset(String size, long seed, double qualificationDensity, double availabilityDensity) {
+    InstanceGenerator gen = new InstanceGenerator(seed);
+    switch (size) {
+      case "small":
+        return gen.generate(10, 20, 8, 5, 6, qualificationDensity, availabilityDensity);
+      case "medium":
+        return gen.generate(40, 100, 30, 5, 8, qualificationDensity, availabilityDensity);
+      case "large":
+        return gen.generate(150, 400, 100, 5, 8, qualificationDensity, availabilityDensity);
+      default:
+        throw new IllegalArgumentException("unknown size: " + size);
+    }
+  }
+
+  public Config generate(int numTeachers, int numCourses, int numRooms, int numDays, int slotsPerDay,
+                         double qualificationDensity, double availabilityDensity) {
+    String[] teachers = new String[numTeachers];
+    for (int i = 0; i < numTeachers; i++) teachers[i] = "Teacher " + i;
+    String[] courses = new String[numCourses];
+    for (int i = 0; i < numCourses; i++) courses[i] = "Course " + i;
+    String[] timeSlots = new String[numDays * slotsPerDay];
+    for (int d = 0; d < numDays; d++) {
+      for (int h = 0; h < slotsPerDay; h++) {
+        timeSlots[d * slotsPerDay + h] = String.format("D%d %d-%d", d + 1, 8 + h, 9 + h);
+      }
+    }
+    String[] rooms = new String[numRooms];
+    for (int i = 0; i < numRooms; i++) {
+      rooms[i] = String.format("Building %d - Room %d", i / ROOMS_PER_BUILDING, i);
+    }
+
+    Config cfg = new Config(teachers, courses, timeSlots, rooms, 3, 5);
+
+    // rooms: the first quarter are labs, at least one of each type
+    int labs = Math.max(1, Math.min(numRooms - 1, (int) Math.round(numRooms * LAB_SHARE)));
+    for (int i = 0; i < numRooms; i++) {
+      cfg.roomBuildings.put(rooms[i], String.valueOf(i / ROOMS_PER_BUILDING));
+      cfg.roomTypes.put(rooms[i], i < labs ? "science_lab" : "standard");
+    }
+
+    for (String c : courses) {
+      cfg.courseRoomRequirements.put(c, rnd.nextDouble() < LAB_SHARE ? "science_lab" : "standard");
+      if (rnd.nextDouble() < AP_SHARE) cfg.apCourses.add(c);
+    }
+
+    // qualifications and AP certification
+    for (String t : teachers) {
+      cfg.teacherQualifications.put(t, new ArrayList<>());
+      cfg.apCertified.put(t, new ArrayList<>());
+    }
+    for (String c : courses) {
+      boolean any = false;
+      for (String t : teachers) {
+        if (rnd.nextDouble() < qualificationDensity) {
+          qualify(cfg, t, c);
+          any = true;
+        }
+      }
+      if (!any) qualify(cfg, teachers[rnd.nextInt(numTeachers)], c);
+    }
+
+    // availability
+    for (String t : teachers) cfg.teacherAvailability.put(t, sample(timeSlots, availabilityDensity));
+    for (String r : rooms) cfg.roomAvailability.put(r, sample(timeSlots, availabilityDensity));
+
+    for (String t : teachers) cfg.requiredPrepPeriods.put(t, 1);
+    return cfg;
+  }
+
+  private void qualify(Config cfg, String teacher, String course) {
+    cfg.teacherQualifications.get(teacher).add(course);
+    if (cfg.apCourses.contains(course)) cfg.apCertified.get(teacher).add(course);
+  }
+
+  private List<String> sample(String[] values, double density) {
+    List<String> out = new ArrayList<>();
+    for (String v : values) if (rnd.nextDouble() < density) out.add(v);
+    return out;
+  }
+}
@@ -0,0 +1,76 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.SolutionResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ScheduleVerifier on valid schedules of a given size. The instance is built around its schedule:
+// every teacher teaches 25 courses, five a day at day positions 0, 1, 2, 4, 5 (within both limits),
+// in a room of their own, so schedules of any size are valid without a solve.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScheduleVerifierBenchmark {
+  private static final int DAYS = 5;
+  private static final int SLOTS_PER_DAY = 8;
+  private static final int[] POSITIONS = {0, 1, 2, 4, 5};
+
+  @Param({"1000", "100000"})
+  public int assignments;
+
+  private CompiledInstance inst;
+  private ScheduleVerifier verifier;
+  private SolutionResult schedule;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    int perTeacher = DAYS * POSITIONS.length;
+    int P = (assignments + perTeacher - 1) / perTeacher;
+    String[] teachers = new String[P];
+    String[] rooms = new String[P];
+    for (int p = 0; p < P; p++) {
+      teachers[p] = "Teacher " + p;
+      rooms[p] = "Room " + p;
+    }
+    String[] courses = new String[assignments];
+    for (int c = 0; c < assignments; c++) courses[c] = "Course " + c;
+    String[] slots = new String[DAYS * SLOTS_PER_DAY];
+    for (int d = 0; d < DAYS; d++) {
+      for (int h = 0; h < SLOTS_PER_DAY; h++) slots[d * SLOTS_PER_DAY + h] = String.format("D%d %d-%d", d + 1, 8 + h, 9 + h);
+    }
+
+    Config cfg = new Config(teachers, courses, slots, rooms, 3, 5);
+    schedule = new SolutionResult();
+    for (int c = 0; c < assignments; c++) {
+      int p = c / perTeacher, k = c % perTeacher;
+      String slot = slots[(k / POSITIONS.length) * SLOTS_PER_DAY + POSITIONS[k % POSITIONS.length]];
+      cfg.teacherQualifications.computeIfAbsent(teachers[p], t -> new ArrayList<>()).add(courses[c]);
+      schedule.assignments.add(new Assignment(courses[c], slot, rooms[p], teachers[p]));
+    }
+    for (int p = 0; p < P; p++) {
+      cfg.teacherAvailability.put(teachers[p], List.of(slots));
+      cfg.roomAvailability.put(rooms[p], List.of(slots));
+    }
+    inst = CompiledInstance.compile(cfg);
+    verifier = new ScheduleVerifier(inst);
+    if (!verifier.isValid(schedule)) throw new IllegalStateException("generated schedule is not valid");
+  }
+
+  @Benchmark
+  public List<ScheduleVerifier.Violation> verify() {
+    return verifier.verify(schedule);
+  }
+
+  // Including the name lookups, for a one-off check
+  @Benchmark
+  public List<ScheduleVerifier.Violation> verifyFresh() {
+    return new ScheduleVerifier(inst).verify(schedule);
+  }
+}
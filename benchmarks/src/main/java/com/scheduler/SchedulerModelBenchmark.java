@@ -0,0 +1,95 @@
+package com.scheduler;
+
+import com.google.ortools.Loader;
+import com.google.ortools.sat.CpSolver;
+import com.scheduler.SchedulerModel.Construction;
+import com.scheduler.SchedulerModel.Layout;
+import com.scheduler.SchedulerModel.SolutionResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Compile, model construction, solve and extraction of SchedulerModel, measured separately.
+// "large" is left out of the default sizes because DENSE on it is 240M variables; run it with
+// -p size=large -p layout=SPARSE. Compare build time and garbage of the two construction paths with
+// -prof gc.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SchedulerModelBenchmark {
+  @Param({"small", "medium"})
+  public String size;
+
+  @Param({"SPARSE", "DENSE"})
+  public Layout layout;
+
+  @Param({"OBJECTS", "DIRECT"})
+  public Construction construction;
+
+  @Param({"true", "false"})
+  public boolean variableNames;
+
+  @Param({"0.05"})
+  public double qualificationDensity;
+
+  @Param({"0.8"})
+  public double availabilityDensity;
+
+  @Param({"0"})
+  public int workers;
+
+  @Param({"10"})
+  public double timeLimit;
+
+  private Config cfg;
+  private CompiledInstance inst;
+  private SchedulerModel model;
+  private SchedulerModel.Built built;
+  private SchedulerModel templated;
+  private CpSolver solved;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Loader.loadNativeLibraries();
+    cfg = InstanceGenerator.preset(size, 42, qualificationDensity, availabilityDensity);
+    inst = CompiledInstance.compile(cfg);
+    model = new SchedulerModel(inst, layout, SolverOptions.defaults().workers(workers).timeLimit(timeLimit))
+      .construction(construction).variableNames(variableNames);
+    built = model.build(inst);
+    solved = model.solveBuilt(built);
+    templated = new SchedulerModel(inst, layout, SolverOptions.defaults()).template(new ModelTemplate(inst, layout));
+  }
+
+  @Benchmark
+  public CompiledInstance compile() {
+    return CompiledInstance.compile(cfg);
+  }
+
+  @Benchmark
+  public SchedulerModel.Built build() {
+    return model.build(inst);
+  }
+
+  // Per-request setup when the structure is prebuilt: proto copy plus availability domains
+  @Benchmark
+  public SchedulerModel.Built instantiate() {
+    return templated.build(inst);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 1)
+  @Measurement(iterations = 3)
+  public CpSolver solve() {
+    return model.solveBuilt(built);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public SolutionResult extract() {
+    return model.extract(built, solved);
+  }
+}
@@ -0,0 +1,60 @@
+package com.scheduler;
+
+import com.google.ortools.Loader;
+import com.google.ortools.sat.CpSolver;
+import com.google.ortools.sat.CpSolverStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Model construction, solve and extraction of the standalone SchoolScheduler pipeline.
+// Always dense, so "large" needs a big heap.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SchoolSchedulerBenchmark {
+  @Param({"small", "medium"})
+  public String size;
+
+  @Param({"0.05"})
+  public double qualificationDensity;
+
+  @Param({"0.8"})
+  public double availabilityDensity;
+
+  private Config cfg;
+  private SchoolScheduler.Pipeline pipeline;
+  private CpSolver solved;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Loader.loadNativeLibraries();
+    cfg = InstanceGenerator.preset(size, 42, qualificationDensity, availabilityDensity);
+    pipeline = SchoolScheduler.build(cfg);
+    solved = new CpSolver();
+    SchoolScheduler.solve(pipeline, solved);
+  }
+
+  @Benchmark
+  public SchoolScheduler.Pipeline build() {
+    return SchoolScheduler.build(cfg);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 1)
+  @Measurement(iterations = 3)
+  public CpSolverStatus solve() {
+    return SchoolScheduler.solve(pipeline, new CpSolver());
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public List<int[]> extract() {
+    return SchoolScheduler.extract(pipeline, solved);
+  }
+}
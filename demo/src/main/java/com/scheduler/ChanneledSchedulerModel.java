@@ -0,0 +1,210 @@
+package com.scheduler;
+
+import com.google.ortools.Loader;
+import com.google.ortools.sat.*;
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.BuildStats;
+import com.scheduler.SchedulerModel.SolutionResult;
+import com.scheduler.SchedulerModel.SolveStats;
+
+import java.util.*;
+
+// Decomposed formulation: instead of one product variable per (course, slot, room, teacher) it uses
+// three families xTeacher[c][p], xSlot[c][s] and xRoom[c][r], each exactly-one per course. Conflicts are
+// expressed through busy[p][s] / occupied[r][s], channeled from (course, teacher, slot) and
+// (course, room, slot) conjunctions, so the model grows with C*P*S + C*R*S rather than C*S*R*P.
+public class ChanneledSchedulerModel implements ScheduleSolver {
+  private final CompiledInstance inst;
+  private final SolverOptions options;
+  private BuildStats lastBuildStats;
+  private SolveStats lastSolveStats;
+  private SolveMetrics lastMetrics;
+
+  public ChanneledSchedulerModel(Config cfg) {
+    this(CompiledInstance.compile(cfg), SolverOptions.defaults());
+  }
+
+  public ChanneledSchedulerModel(CompiledInstance inst, SolverOptions options) {
+    this.inst = inst;
+    this.options = options;
+  }
+
+  @Override
+  public BuildStats getBuildStats() {
+    return lastBuildStats;
+  }
+
+  @Override
+  public SolveStats getSolveStats() {
+    return lastSolveStats;
+  }
+
+  public SolveMetrics getMetrics() {
+    return lastMetrics;
+  }
+
+  @Override
+  public Optional<SolutionResult> solve() {
+    inst.requireSingleSessions("ChanneledSchedulerModel");
+    long buildStart = System.nanoTime();
+    MetricsRecorder metrics = new MetricsRecorder(options.getMetricsListener() != null);
+    metrics.phase("load-natives");
+    Loader.loadNativeLibraries();
+    CpModel model = new CpModel();
+    metrics.attach(model);
+    metrics.phase("variables");
+
+    int C = inst.numCourses;
+    int S = inst.numSlots;
+    int R = inst.numRooms;
+    int P = inst.numTeachers;
+
+    // Decision families; null where the pair can never be chosen
+    BoolVar[][] xTeacher = new BoolVar[C][P];
+    BoolVar[][] xSlot = new BoolVar[C][S];
+    BoolVar[][] xRoom = new BoolVar[C][R];
+
+    for (int c = 0; c < C; c++) {
+      List<BoolVar> teachers = new ArrayList<>();
+      for (int p : inst.courseTeachers[c]) {
+        xTeacher[c][p] = model.newBoolVar(String.format("t_c%d_p%d", c, p));
+        teachers.add(xTeacher[c][p]);
+      }
+      List<BoolVar> rooms = new ArrayList<>();
+      for (int r : inst.courseRooms[c]) {
+        xRoom[c][r] = model.newBoolVar(String.format("r_c%d_r%d", c, r));
+        rooms.add(xRoom[c][r]);
+      }
+      // a slot is usable only if some eligible teacher and some matching room are available then
+      List<BoolVar> slots = new ArrayList<>();
+      for (int s = 0; s < S; s++) {
+        if (!anyAvailable(inst.courseTeachers[c], inst.teacherAvail, s)) continue;
+        if (!anyAvailable(inst.courseRooms[c], inst.roomAvail, s)) continue;
+        xSlot[c][s] = model.newBoolVar(String.format("s_c%d_s%d", c, s));
+        slots.add(xSlot[c][s]);
+      }
+      // Each course exactly once: one teacher, one slot, one room
+      model.addExactlyOne(teachers.toArray(new Literal[0]));
+      model.addExactlyOne(slots.toArray(new Literal[0]));
+      model.addExactlyOne(rooms.toArray(new Literal[0]));
+    }
+
+    // Teacher/slot channel: teaches[c,p,s] <=> xTeacher[c][p] && xSlot[c][s], summed into busy[p][s]
+    metrics.phase("teacher-channel");
+    BoolVar[][] busy = new BoolVar[P][S];
+    for (int p = 0; p < P; p++) {
+      for (int s = 0; s < S; s++) {
+        List<BoolVar> terms = new ArrayList<>();
+        for (int c = 0; c < C; c++) {
+          if (xTeacher[c][p] == null || xSlot[c][s] == null) continue;
+          if (!inst.teacherAvail[p].get(s)) {
+            // Teacher availability
+            model.addBoolOr(new Literal[] {xTeacher[c][p].not(), xSlot[c][s].not()});
+            continue;
+          }
+          terms.add(conjunction(model, xTeacher[c][p], xSlot[c][s], String.format("ts_c%d_p%d_s%d", c, p, s)));
+        }
+        if (terms.isEmpty()) continue;
+        // Teacher cannot teach more than one class at same timeslot
+        busy[p][s] = model.newBoolVar(String.format("busy_p%d_s%d", p, s));
+        model.addEquality(LinearExpr.sum(terms.toArray(new BoolVar[0])), busy[p][s]);
+      }
+    }
+
+    // Room/slot channel, summed into occupied[r][s]
+    metrics.phase("room-channel");
+    BoolVar[][] occupied = new BoolVar[R][S];
+    for (int r = 0; r < R; r++) {
+      for (int s = 0; s < S; s++) {
+        List<BoolVar> terms = new ArrayList<>();
+        for (int c = 0; c < C; c++) {
+          if (xRoom[c][r] == null || xSlot[c][s] == null) continue;
+          if (!inst.roomAvail[r].get(s)) {
+            // Room availability
+            model.addBoolOr(new Literal[] {xRoom[c][r].not(), xSlot[c][s].not()});
+            continue;
+          }
+          terms.add(conjunction(model, xRoom[c][r], xSlot[c][s], String.format("rs_c%d_r%d_s%d", c, r, s)));
+        }
+        if (terms.isEmpty()) continue;
+        // One class per room per timeslot
+        occupied[r][s] = model.newBoolVar(String.format("occ_r%d_s%d", r, s));
+        model.addEquality(LinearExpr.sum(terms.toArray(new BoolVar[0])), occupied[r][s]);
+      }
+    }
+
+    // Max classes per day and prep periods
+    metrics.phase("daily-limit");
+    for (int p = 0; p < P; p++) {
+      for (int d = 0; d < inst.numDays(); d++) {
+        List<BoolVar> terms = SchedulerModel.busyTerms(busy[p], inst.daySlots[d], 0, inst.daySlots[d].length);
+        if (terms.isEmpty()) continue;
+        model.addLessOrEqual(LinearExpr.sum(terms.toArray(new BoolVar[0])), inst.allowedPerDay(p, d));
+      }
+    }
+
+    // Max consecutive teaching via sliding window per day
+    metrics.phase("consecutive");
+    int windowSize = inst.maxConsecutiveTeaching + 1;
+    for (int p = 0; p < P; p++) {
+      for (int[] slotsForDay : inst.daySlots) {
+        for (int i = 0; i + windowSize <= slotsForDay.length; i++) {
+          List<BoolVar> windowVars = SchedulerModel.busyTerms(busy[p], slotsForDay, i, i + windowSize);
+          if (windowVars.size() <= inst.maxConsecutiveTeaching) continue;
+          model.addLessOrEqual(LinearExpr.sum(windowVars.toArray(new BoolVar[0])), inst.maxConsecutiveTeaching);
+        }
+      }
+    }
+
+    metrics.stop();
+    lastBuildStats = new BuildStats("CHANNELED", model.getBuilder().getVariablesCount(),
+      model.getBuilder().getConstraintsCount(), (System.nanoTime() - buildStart) / 1_000_000L);
+
+    // Solve (feasible)
+    CpSolver solver = new CpSolver();
+    options.applyTo(solver);
+
+    metrics.phase("solve");
+    CpSolverStatus status = solver.solve(model);
+    metrics.stop();
+    lastSolveStats = SolveStats.of(solver, status, options);
+
+    Optional<SolutionResult> result = Optional.empty();
+    if (status == CpSolverStatus.OPTIMAL || status == CpSolverStatus.FEASIBLE) {
+      metrics.phase("extract");
+      SolutionResult res = new SolutionResult();
+      res.stats = lastSolveStats;
+      for (int c = 0; c < C; c++) {
+        int p = chosen(solver, xTeacher[c]);
+        int s = chosen(solver, xSlot[c]);
+        int r = chosen(solver, xRoom[c]);
+        res.assignments.add(new Assignment(inst.courses[c], inst.timeSlots[s], inst.rooms[r], inst.teachers[p]));
+      }
+      result = Optional.of(res);
+    }
+    lastMetrics = metrics.finish("CHANNELED", solver, status);
+    if (options.getMetricsListener() != null) options.getMetricsListener().onMetrics(lastMetrics);
+    return result;
+  }
+
+  // z <=> a && b
+  private static BoolVar conjunction(CpModel model, BoolVar a, BoolVar b, String name) {
+    BoolVar z = model.newBoolVar(name);
+    model.addImplication(z, a);
+    model.addImplication(z, b);
+    model.addBoolOr(new Literal[] {a.not(), b.not(), z});
+    return z;
+  }
+
+  private static boolean anyAvailable(int[] ids, BitSet[] avail, int s) {
+    for (int id : ids) if (avail[id].get(s)) return true;
+    return false;
+  }
+
+  private static int chosen(CpSolver solver, BoolVar[] vars) {
+    for (int i = 0; i < vars.length; i++) {
+      if (vars[i] != null && solver.booleanValue(vars[i])) return i;
+    }
+    throw new IllegalStateException("exactly-one family has no true literal");
+  }
+}
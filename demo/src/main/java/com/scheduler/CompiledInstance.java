@@ -0,0 +1,352 @@
+package com.scheduler;
+
+import java.util.*;
+
+// Int-indexed view of a Config: names become ids, lists become BitSets, slot metadata becomes
+// primitive arrays. Built once per instance; the model builders read only from this.
+public final class CompiledInstance {
+  public final String[] teachers;
+  public final String[] courses;
+  public final String[] timeSlots;
+  public final String[] rooms;
+
+  public final int numTeachers;
+  public final int numCourses;
+  public final int numSlots;
+  public final int numRooms;
+
+  // slot metadata
+  public final String[] dayNames;
+  public final int[] slotDay;
+  public final int[] slotHour;
+  // slots of each day, ordered by hour
+  public final int[][] daySlots;
+
+  // room metadata
+  public final String[] roomTypeNames;
+  public final int[] roomType;
+  public final String[] buildingNames;
+  public final int[] roomBuilding;
+
+  // course metadata
+  public final int[] courseRoomType;
+  public final boolean[] apCourse;
+  // meetings per week, and consecutive slots of one day per meeting (IntervalSchedulerModel)
+  public final int[] courseSessions;
+  public final int[] sessionLength;
+
+  // qualified[p]: courses teacher p is qualified for; eligible[p]: of those, the ones p may teach
+  // (AP courses need AP certification)
+  public final BitSet[] qualified;
+  public final BitSet[] eligible;
+  // teacherAvail[p] / roomAvail[r]: slots the teacher / room is available
+  public final BitSet[] teacherAvail;
+  public final BitSet[] roomAvail;
+  public final int[] prepPeriods;
+
+  // derived: eligible teachers and rooms of the required type, per course
+  public final int[][] courseTeachers;
+  public final int[][] courseRooms;
+
+  public final int maxConsecutiveTeaching;
+  public final int maxClassesPerDay;
+
+  CompiledInstance(String[] teachers, String[] courses, String[] timeSlots, String[] rooms,
+                   String[] dayNames, int[] slotDay, int[] slotHour,
+                   String[] roomTypeNames, int[] roomType, String[] buildingNames, int[] roomBuilding,
+                   int[] courseRoomType, boolean[] apCourse, int[] courseSessions, int[] sessionLength,
+                   BitSet[] qualified, BitSet[] eligible, BitSet[] teacherAvail, BitSet[] roomAvail,
+                   int[] prepPeriods, int maxConsecutiveTeaching, int maxClassesPerDay) {
+    this.teachers = teachers;
+    this.courses = courses;
+    this.timeSlots = timeSlots;
+    this.rooms = rooms;
+    this.numTeachers = teachers.length;
+    this.numCourses = courses.length;
+    this.numSlots = timeSlots.length;
+    this.numRooms = rooms.length;
+    this.dayNames = dayNames;
+    this.slotDay = slotDay;
+    this.slotHour = slotHour;
+    this.roomTypeNames = roomTypeNames;
+    this.roomType = roomType;
+    this.buildingNames = buildingNames;
+    this.roomBuilding = roomBuilding;
+    this.courseRoomType = courseRoomType;
+    this.apCourse = apCourse;
+    this.courseSessions = courseSessions;
+    this.sessionLength = sessionLength;
+    this.qualified = qualified;
+    this.eligible = eligible;
+    this.teacherAvail = teacherAvail;
+    this.roomAvail = roomAvail;
+    this.prepPeriods = prepPeriods;
+    this.maxConsecutiveTeaching = maxConsecutiveTeaching;
+    this.maxClassesPerDay = maxClassesPerDay;
+
+    // day -> slots sorted by hour
+    int[] perDay = new int[dayNames.length];
+    for (int s = 0; s < numSlots; s++) perDay[slotDay[s]]++;
+    this.daySlots = new int[dayNames.length][];
+    for (int d = 0; d < dayNames.length; d++) daySlots[d] = new int[perDay[d]];
+    int[] fill = new int[dayNames.length];
+    for (int s = 0; s < numSlots; s++) daySlots[slotDay[s]][fill[slotDay[s]]++] = s;
+    for (int[] ds : daySlots) sortByHour(ds, slotHour);
+
+    // counted then filled, so the cost is linear in the eligible pairs; courses of the same room type
+    // share one rooms array
+    int[] perCourse = new int[numCourses];
+    for (BitSet e : eligible) for (int c = e.nextSetBit(0); c >= 0; c = e.nextSetBit(c + 1)) perCourse[c]++;
+    this.courseTeachers = new int[numCourses][];
+    for (int c = 0; c < numCourses; c++) courseTeachers[c] = new int[perCourse[c]];
+    Arrays.fill(perCourse, 0);
+    for (int p = 0; p < numTeachers; p++) {
+      BitSet e = eligible[p];
+      for (int c = e.nextSetBit(0); c >= 0; c = e.nextSetBit(c + 1)) courseTeachers[c][perCourse[c]++] = p;
+    }
+
+    int[] perType = new int[roomTypeNames.length];
+    for (int r = 0; r < numRooms; r++) perType[roomType[r]]++;
+    int[][] typeRooms = new int[roomTypeNames.length][];
+    for (int t = 0; t < typeRooms.length; t++) typeRooms[t] = new int[perType[t]];
+    Arrays.fill(perType, 0);
+    for (int r = 0; r < numRooms; r++) typeRooms[roomType[r]][perType[roomType[r]]++] = r;
+    this.courseRooms = new int[numCourses][];
+    for (int c = 0; c < numCourses; c++) courseRooms[c] = typeRooms[courseRoomType[c]];
+  }
+
+  public static CompiledInstance compile(Config cfg) {
+    int C = cfg.courses.length;
+    int S = cfg.timeSlots.length;
+    int R = cfg.rooms.length;
+    int P = cfg.teachers.length;
+
+    // slots: days in order of first appearance
+    Map<String, Integer> dayIds = new LinkedHashMap<>();
+    int[] slotDay = new int[S];
+    int[] slotHour = new int[S];
+    for (int s = 0; s < S; s++) {
+      Map<String, Object> meta = cfg.slotInfo.get(cfg.timeSlots[s]);
+      String day = (String) meta.get("day");
+      slotDay[s] = dayIds.computeIfAbsent(day, k -> dayIds.size());
+      slotHour[s] = (Integer) meta.get("hour");
+    }
+
+    // rooms
+    Map<String, Integer> typeIds = new LinkedHashMap<>();
+    Map<String, Integer> buildingIds = new LinkedHashMap<>();
+    int[] roomType = new int[R];
+    int[] roomBuilding = new int[R];
+    for (int r = 0; r < R; r++) {
+      String room = cfg.rooms[r];
+      roomType[r] = typeIds.computeIfAbsent(cfg.roomTypes.getOrDefault(room, "standard"), k -> typeIds.size());
+      roomBuilding[r] = buildingIds.computeIfAbsent(cfg.roomBuildings.getOrDefault(room, ""), k -> buildingIds.size());
+    }
+
+    // courses
+    int[] courseRoomType = new int[C];
+    boolean[] apCourse = new boolean[C];
+    int[] courseSessions = new int[C];
+    int[] sessionLength = new int[C];
+    for (int c = 0; c < C; c++) {
+      String course = cfg.courses[c];
+      courseRoomType[c] = typeIds.computeIfAbsent(cfg.courseRoomRequirements.getOrDefault(course, "standard"),
+        k -> typeIds.size());
+      apCourse[c] = cfg.apCourses.contains(course);
+      courseSessions[c] = cfg.courseSessions.getOrDefault(course, 1);
+      sessionLength[c] = cfg.courseSessionLength.getOrDefault(course, 1);
+    }
+
+    // teachers
+    BitSet[] qualified = new BitSet[P];
+    BitSet[] eligible = new BitSet[P];
+    BitSet[] teacherAvail = new BitSet[P];
+    int[] prepPeriods = new int[P];
+    for (int p = 0; p < P; p++) {
+      String teacher = cfg.teachers[p];
+      qualified[p] = indexSet(cfg.teacherQualifications.get(teacher), cfg.courseIndex, C);
+      BitSet ap = indexSet(cfg.apCertified.get(teacher), cfg.courseIndex, C);
+      BitSet can = (BitSet) qualified[p].clone();
+      for (int c = can.nextSetBit(0); c >= 0; c = can.nextSetBit(c + 1)) {
+        if (apCourse[c] && !ap.get(c)) can.clear(c);
+      }
+      eligible[p] = can;
+      teacherAvail[p] = indexSet(cfg.teacherAvailability.get(teacher), cfg.slotIndex, S);
+      prepPeriods[p] = cfg.requiredPrepPeriods.getOrDefault(teacher, 0);
+    }
+
+    BitSet[] roomAvail = new BitSet[R];
+    for (int r = 0; r < R; r++) {
+      roomAvail[r] = indexSet(cfg.roomAvailability.get(cfg.rooms[r]), cfg.slotIndex, S);
+    }
+
+    return new CompiledInstance(cfg.teachers, cfg.courses, cfg.timeSlots, cfg.rooms,
+      dayIds.keySet().toArray(new String[0]), slotDay, slotHour,
+      typeIds.keySet().toArray(new String[0]), roomType, buildingIds.keySet().toArray(new String[0]), roomBuilding,
+      courseRoomType, apCourse, courseSessions, sessionLength, qualified, eligible, teacherAvail, roomAvail,
+      prepPeriods, cfg.maxConsecutiveTeaching, cfg.maxClassesPerDay);
+  }
+
+  // The sub-instance over the given teachers, courses and rooms (ids of this instance, ascending).
+  // Slots, days, room types and buildings are kept whole; ids are renumbered densely.
+  public CompiledInstance subset(int[] teacherIds, int[] courseIds, int[] roomIds) {
+    int[] courseMap = new int[numCourses];
+    Arrays.fill(courseMap, -1);
+    for (int i = 0; i < courseIds.length; i++) courseMap[courseIds[i]] = i;
+
+    String[] subTeachers = new String[teacherIds.length];
+    BitSet[] subQualified = new BitSet[teacherIds.length];
+    BitSet[] subEligible = new BitSet[teacherIds.length];
+    BitSet[] subTeacherAvail = new BitSet[teacherIds.length];
+    int[] subPrep = new int[teacherIds.length];
+    for (int i = 0; i < teacherIds.length; i++) {
+      int p = teacherIds[i];
+      subTeachers[i] = teachers[p];
+      subQualified[i] = remap(qualified[p], courseMap, courseIds.length);
+      subEligible[i] = remap(eligible[p], courseMap, courseIds.length);
+      subTeacherAvail[i] = teacherAvail[p];
+      subPrep[i] = prepPeriods[p];
+    }
+
+    String[] subCourses = new String[courseIds.length];
+    int[] subCourseRoomType = new int[courseIds.length];
+    boolean[] subAp = new boolean[courseIds.length];
+    int[] subSessions = new int[courseIds.length];
+    int[] subLength = new int[courseIds.length];
+    for (int i = 0; i < courseIds.length; i++) {
+      subCourses[i] = courses[courseIds[i]];
+      subCourseRoomType[i] = courseRoomType[courseIds[i]];
+      subAp[i] = apCourse[courseIds[i]];
+      subSessions[i] = courseSessions[courseIds[i]];
+      subLength[i] = sessionLength[courseIds[i]];
+    }
+
+    String[] subRooms = new String[roomIds.length];
+    int[] subRoomType = new int[roomIds.length];
+    int[] subRoomBuilding = new int[roomIds.length];
+    BitSet[] subRoomAvail = new BitSet[roomIds.length];
+    for (int i = 0; i < roomIds.length; i++) {
+      int r = roomIds[i];
+      subRooms[i] = rooms[r];
+      subRoomType[i] = roomType[r];
+      subRoomBuilding[i] = roomBuilding[r];
+      subRoomAvail[i] = roomAvail[r];
+    }
+
+    return new CompiledInstance(subTeachers, subCourses, timeSlots, subRooms, dayNames, slotDay, slotHour,
+      roomTypeNames, subRoomType, buildingNames, subRoomBuilding, subCourseRoomType, subAp, subSessions, subLength,
+      subQualified, subEligible, subTeacherAvail, subRoomAvail, subPrep, maxConsecutiveTeaching, maxClassesPerDay);
+  }
+
+  // The same instance with other teacher and room availability; everything else is shared
+  public CompiledInstance withAvailability(BitSet[] teacherAvail, BitSet[] roomAvail) {
+    if (teacherAvail.length != numTeachers || roomAvail.length != numRooms) {
+      throw new IllegalArgumentException("availability needs " + numTeachers + " teachers and " + numRooms + " rooms");
+    }
+    return new CompiledInstance(teachers, courses, timeSlots, rooms, dayNames, slotDay, slotHour,
+      roomTypeNames, roomType, buildingNames, roomBuilding, courseRoomType, apCourse, courseSessions, sessionLength,
+      qualified, eligible, teacherAvail, roomAvail, prepPeriods, maxConsecutiveTeaching, maxClassesPerDay);
+  }
+
+  // The same instance under other limits
+  public CompiledInstance withLimits(int maxConsecutiveTeaching, int maxClassesPerDay) {
+    return new CompiledInstance(teachers, courses, timeSlots, rooms, dayNames, slotDay, slotHour,
+      roomTypeNames, roomType, buildingNames, roomBuilding, courseRoomType, apCourse, courseSessions, sessionLength,
+      qualified, eligible, teacherAvail, roomAvail, prepPeriods, maxConsecutiveTeaching, maxClassesPerDay);
+  }
+
+  // This instance plus single-session courses appended after the existing ones. New course i needs a
+  // room of type roomTypes[i] and may be taught by teachers[i] (ids; AP certification is the caller's).
+  public CompiledInstance withCourses(String[] names, int[] roomTypes, boolean[] ap, int[][] teachers) {
+    int C = numCourses + names.length;
+    String[] allCourses = Arrays.copyOf(courses, C);
+    int[] allRoomType = Arrays.copyOf(courseRoomType, C);
+    boolean[] allAp = Arrays.copyOf(apCourse, C);
+    int[] allSessions = Arrays.copyOf(courseSessions, C);
+    int[] allLength = Arrays.copyOf(sessionLength, C);
+    BitSet[] allQualified = qualified.clone();
+    BitSet[] allEligible = eligible.clone();
+    for (int i = 0; i < names.length; i++) {
+      int c = numCourses + i;
+      if (roomTypes[i] < 0 || roomTypes[i] >= roomTypeNames.length) {
+        throw new IllegalArgumentException("unknown room type for " + names[i]);
+      }
+      allCourses[c] = names[i];
+      allRoomType[c] = roomTypes[i];
+      allAp[c] = ap[i];
+      allSessions[c] = 1;
+      allLength[c] = 1;
+      for (int p : teachers[i]) {
+        if (allQualified[p] == qualified[p]) {
+          allQualified[p] = (BitSet) qualified[p].clone();
+          allEligible[p] = (BitSet) eligible[p].clone();
+        }
+        allQualified[p].set(c);
+        allEligible[p].set(c);
+      }
+    }
+    return new CompiledInstance(this.teachers, allCourses, timeSlots, rooms, dayNames, slotDay, slotHour,
+      roomTypeNames, roomType, buildingNames, roomBuilding, allRoomType, allAp, allSessions, allLength,
+      allQualified, allEligible, teacherAvail, roomAvail, prepPeriods, maxConsecutiveTeaching, maxClassesPerDay);
+  }
+
+  private static BitSet remap(BitSet set, int[] map, int size) {
+    BitSet out = new BitSet(size);
+    for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+      if (map[i] >= 0) out.set(map[i]);
+    }
+    return out;
+  }
+
+  public int numDays() {
+    return dayNames.length;
+  }
+
+  // The boolean-grid formulations place every course once, in one slot; only IntervalSchedulerModel
+  // schedules several meetings or multi-slot meetings. They call this first instead of dropping them.
+  void requireSingleSessions(String formulation) {
+    for (int c = 0; c < numCourses; c++) {
+      if (courseSessions[c] != 1 || sessionLength[c] != 1) {
+        throw new IllegalArgumentException(formulation + " places every course once in a single slot, but "
+          + courses[c] + " meets " + courseSessions[c] + " times for " + sessionLength[c]
+          + " slots; use IntervalSchedulerModel");
+      }
+    }
+  }
+
+  // Qualification, AP certification, room type and availability filters for one tuple
+  public boolean isFeasible(int c, int s, int r, int p) {
+    return eligible[p].get(c)
+      && roomType[r] == courseRoomType[c]
+      && teacherAvail[p].get(s)
+      && roomAvail[r].get(s);
+  }
+
+  // Classes teacher p may teach on day d: bounded by maxClassesPerDay and by the required prep periods
+  public int allowedPerDay(int p, int d) {
+    return Math.max(0, Math.min(daySlots[d].length - prepPeriods[p], maxClassesPerDay));
+  }
+
+  private static BitSet indexSet(List<String> names, Map<String, Integer> index, int size) {
+    BitSet set = new BitSet(size);
+    if (names == null) return set;
+    for (String n : names) {
+      Integer i = index.get(n);
+      if (i != null) set.set(i);
+    }
+    return set;
+  }
+
+  private static void sortByHour(int[] slots, int[] slotHour) {
+    // insertion sort; days hold a handful of slots and the order must be stable
+    for (int i = 1; i < slots.length; i++) {
+      int v = slots[i];
+      int j = i - 1;
+      while (j >= 0 && slotHour[slots[j]] > slotHour[v]) {
+        slots[j + 1] = slots[j];
+        j--;
+      }
+      slots[j + 1] = v;
+    }
+  }
+}
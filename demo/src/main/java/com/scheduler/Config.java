@@ -4,25 +4,10 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public final class Config {
-  public final String[] teachers = {
-    "Ms. Smith", "Mr. Jones", "Dr. Brown", "Ms. Davis", "Dr. Lee"
-  };
-
-  public final String[] courses = {
-    "Math 101", "Math 102", "Physics 101", "Chemistry 101",
-    "English 101", "AP Calculus", "AP Physics", "Biology 101"
-  };
-
-  public final String[] timeSlots = {
-    "Mon 8-9","Mon 9-10","Mon 10-11","Mon 11-12","Mon 1-2","Mon 2-3",
-    "Tue 8-9","Tue 9-10","Tue 10-11","Tue 11-12","Tue 1-2","Tue 2-3",
-    "Wed 8-9","Wed 9-10","Wed 10-11","Wed 11-12","Wed 1-2","Wed 2-3"
-  };
-
-  public final String[] rooms = {
-    "Building A - Room 101","Building A - Room 102","Building A - Lab 201",
-    "Building B - Room 301","Building B - Lab 302","Building C - Room 401"
-  };
+  public final String[] teachers;
+  public final String[] courses;
+  public final String[] timeSlots;
+  public final String[] rooms;
 
   public final Map<String, Map<String, Object>> slotInfo = new HashMap<>();
   public final Map<String, String> roomBuildings = new HashMap<>();
@@ -34,8 +19,12 @@ public final class Config {
   public final Map<String, List<String>> teacherAvailability = new HashMap<>();
   public final Map<String, List<String>> roomAvailability = new HashMap<>();
   public final Map<String, Integer> requiredPrepPeriods = new HashMap<>();
-  public final int maxConsecutiveTeaching = 3;
-  public final int maxClassesPerDay = 5;
+  // meetings per week and consecutive slots per meeting, 1 when absent; only the interval
+  // formulation schedules more than one single-slot meeting
+  public final Map<String, Integer> courseSessions = new HashMap<>();
+  public final Map<String, Integer> courseSessionLength = new HashMap<>();
+  public final int maxConsecutiveTeaching;
+  public final int maxClassesPerDay;
 
   // index maps for convenience
   public final Map<String, Integer> courseIndex = new HashMap<>();
@@ -43,7 +32,17 @@ public final class Config {
   public final Map<String, Integer> roomIndex = new HashMap<>();
   public final Map<String, Integer> teacherIndex = new HashMap<>();
 
-  public Config() {
+  // Empty instance over the given names. Slot names must read "<day> <startHour>-<endHour>"; slotInfo
+  // and the index maps are filled here, every other map is left for the caller.
+  public Config(String[] teachers, String[] courses, String[] timeSlots, String[] rooms,
+                int maxConsecutiveTeaching, int maxClassesPerDay) {
+    this.teachers = teachers;
+    this.courses = courses;
+    this.timeSlots = timeSlots;
+    this.rooms = rooms;
+    this.maxConsecutiveTeaching = maxConsecutiveTeaching;
+    this.maxClassesPerDay = maxClassesPerDay;
+
     // slotInfo
     for (String s : timeSlots) {
       String[] parts = s.split(" ");
@@ -57,6 +56,29 @@ public final class Config {
       slotInfo.put(s, meta);
     }
 
+    // indexes
+    for (int i = 0; i < courses.length; i++) courseIndex.put(courses[i], i);
+    for (int i = 0; i < timeSlots.length; i++) slotIndex.put(timeSlots[i], i);
+    for (int i = 0; i < rooms.length; i++) roomIndex.put(rooms[i], i);
+    for (int i = 0; i < teachers.length; i++) teacherIndex.put(teachers[i], i);
+  }
+
+  // Sample school used by Main
+  public Config() {
+    this(new String[] {
+      "Ms. Smith", "Mr. Jones", "Dr. Brown", "Ms. Davis", "Dr. Lee"
+    }, new String[] {
+      "Math 101", "Math 102", "Physics 101", "Chemistry 101",
+      "English 101", "AP Calculus", "AP Physics", "Biology 101"
+    }, new String[] {
+      "Mon 8-9","Mon 9-10","Mon 10-11","Mon 11-12","Mon 1-2","Mon 2-3",
+      "Tue 8-9","Tue 9-10","Tue 10-11","Tue 11-12","Tue 1-2","Tue 2-3",
+      "Wed 8-9","Wed 9-10","Wed 10-11","Wed 11-12","Wed 1-2","Wed 2-3"
+    }, new String[] {
+      "Building A - Room 101","Building A - Room 102","Building A - Lab 201",
+      "Building B - Room 301","Building B - Lab 302","Building C - Room 401"
+    }, 3, 5);
+
     // room buildings
     roomBuildings.put("Building A - Room 101","A");
     roomBuildings.put("Building A - Room 102","A");
@@ -142,11 +164,5 @@ public final class Config {
     requiredPrepPeriods.put("Dr. Brown", 1);
     requiredPrepPeriods.put("Ms. Davis", 1);
     requiredPrepPeriods.put("Dr. Lee", 1);
-
-    // indexes
-    for (int i = 0; i < courses.length; i++) courseIndex.put(courses[i], i);
-    for (int i = 0; i < timeSlots.length; i++) slotIndex.put(timeSlots[i], i);
-    for (int i = 0; i < rooms.length; i++) roomIndex.put(rooms[i], i);
-    for (int i = 0; i < teachers.length; i++) teacherIndex.put(teachers[i], i);
   }
 }
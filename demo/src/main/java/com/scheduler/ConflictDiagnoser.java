@@ -0,0 +1,186 @@
+package com.scheduler;
+
+import com.google.ortools.Loader;
+import com.google.ortools.sat.*;
+
+import java.util.*;
+
+// Explains an infeasible instance that passed FeasibilityScreen. Every constraint family is guarded by
+// one assumption literal; when CP-SAT proves infeasibility under the assumptions, the sufficient
+// subset it returns is shrunk by deletion until dropping any remaining family makes the model
+// feasible (or unproven). Course coverage stays hard: without it the empty schedule is trivially fine.
+//
+// Candidate tuples are every (course, slot, room of the type, eligible teacher), so availability can be
+// relaxed too. That is larger than the SPARSE model and only meant for the failure path.
+public class ConflictDiagnoser {
+  public enum Family {
+    TEACHER_AVAILABILITY,
+    ROOM_AVAILABILITY,
+    ROOM_CONFLICT,
+    TEACHER_CONFLICT,
+    DAILY_LIMIT,
+    CONSECUTIVE_LIMIT
+  }
+
+  public static class Diagnosis {
+    // INFEASIBLE when the families below are proven to conflict
+    public final CpSolverStatus status;
+    // minimal conflicting families; empty when not INFEASIBLE
+    public final List<Family> conflict;
+
+    public Diagnosis(CpSolverStatus status, List<Family> conflict) {
+      this.status = status;
+      this.conflict = conflict;
+    }
+
+    @Override
+    public String toString() {
+      if (status != CpSolverStatus.INFEASIBLE) return "No conflict proven (" + status + ")";
+      if (conflict.isEmpty()) return "Infeasible even with every relaxable constraint family dropped";
+      return "Conflicting constraint families: " + conflict;
+    }
+  }
+
+  private final CompiledInstance inst;
+  private final SolverOptions options;
+  // sufficient assumptions of the last INFEASIBLE solve
+  private List<Family> lastCore;
+
+  public ConflictDiagnoser(CompiledInstance inst, SolverOptions options) {
+    this.inst = inst;
+    this.options = options;
+  }
+
+  public Diagnosis diagnose() {
+    inst.requireSingleSessions("ConflictDiagnoser");
+    Loader.loadNativeLibraries();
+    CpModel model = new CpModel();
+    Map<Integer, Family> byIndex = new HashMap<>();
+    EnumMap<Family, BoolVar> guard = new EnumMap<>(Family.class);
+    for (Family f : Family.values()) {
+      BoolVar lit = model.newBoolVar("enforce_" + f.name().toLowerCase());
+      guard.put(f, lit);
+      byIndex.put(lit.getIndex(), f);
+    }
+    build(model, guard);
+
+    List<Family> core = new ArrayList<>(guard.keySet());
+    CpSolverStatus status = solve(model, guard, core, byIndex);
+    if (status != CpSolverStatus.INFEASIBLE) return new Diagnosis(status, Collections.emptyList());
+    core = lastCore;
+
+    // deletion: a family stays only if the rest is no longer proven infeasible without it
+    for (Family f : new ArrayList<>(core)) {
+      if (!core.contains(f)) continue;
+      List<Family> trial = new ArrayList<>(core);
+      trial.remove(f);
+      if (solve(model, guard, trial, byIndex) == CpSolverStatus.INFEASIBLE) core = lastCore;
+    }
+    return new Diagnosis(CpSolverStatus.INFEASIBLE, core);
+  }
+
+  private CpSolverStatus solve(CpModel model, EnumMap<Family, BoolVar> guard, List<Family> enforced,
+                               Map<Integer, Family> byIndex) {
+    model.clearAssumptions();
+    List<Literal> assumptions = new ArrayList<>();
+    for (Family f : enforced) assumptions.add(guard.get(f));
+    // families left out are switched off rather than left free
+    for (Family f : Family.values()) if (!enforced.contains(f)) assumptions.add(guard.get(f).not());
+    model.addAssumptions(assumptions.toArray(new Literal[0]));
+
+    CpSolver solver = new CpSolver();
+    options.applyTo(solver);
+    CpSolverStatus status = solver.solve(model);
+    if (status == CpSolverStatus.INFEASIBLE) {
+      List<Family> core = new ArrayList<>();
+      for (int idx : solver.sufficientAssumptionsForInfeasibility()) {
+        Family f = byIndex.get(idx);
+        if (f != null && !core.contains(f)) core.add(f);
+      }
+      core.sort(Comparator.naturalOrder());
+      lastCore = core;
+    }
+    return status;
+  }
+
+  private void build(CpModel model, EnumMap<Family, BoolVar> guard) {
+    int C = inst.numCourses;
+    int S = inst.numSlots;
+    int R = inst.numRooms;
+    int P = inst.numTeachers;
+    List<List<BoolVar>> byCourse = buckets(C);
+    List<List<BoolVar>> byRoomSlot = buckets(R * S);
+    List<List<BoolVar>> byTeacherSlot = buckets(P * S);
+
+    for (int c = 0; c < C; c++) {
+      for (int s = 0; s < S; s++) {
+        for (int r : inst.courseRooms[c]) {
+          for (int p : inst.courseTeachers[c]) {
+            BoolVar v = model.newBoolVar(String.format("c%d_s%d_r%d_p%d", c, s, r, p));
+            if (!inst.teacherAvail[p].get(s)) {
+              model.addEquality(v, 0).onlyEnforceIf(guard.get(Family.TEACHER_AVAILABILITY));
+            }
+            if (!inst.roomAvail[r].get(s)) {
+              model.addEquality(v, 0).onlyEnforceIf(guard.get(Family.ROOM_AVAILABILITY));
+            }
+            byCourse.get(c).add(v);
+            byRoomSlot.get(r * S + s).add(v);
+            byTeacherSlot.get(p * S + s).add(v);
+          }
+        }
+      }
+    }
+
+    for (int c = 0; c < C; c++) {
+      model.addEquality(LinearExpr.sum(byCourse.get(c).toArray(new BoolVar[0])), 1);
+    }
+
+    for (List<BoolVar> terms : byRoomSlot) {
+      if (terms.size() <= 1) continue;
+      model.addLessOrEqual(LinearExpr.sum(terms.toArray(new BoolVar[0])), 1)
+        .onlyEnforceIf(guard.get(Family.ROOM_CONFLICT));
+    }
+
+    // load[p][s] counts classes rather than flagging them, so the daily and consecutive limits keep
+    // their meaning when the teacher conflict family is relaxed
+    IntVar[][] load = new IntVar[P][S];
+    for (int p = 0; p < P; p++) {
+      for (int s = 0; s < S; s++) {
+        List<BoolVar> terms = byTeacherSlot.get(p * S + s);
+        if (terms.isEmpty()) continue;
+        load[p][s] = model.newIntVar(0, terms.size(), String.format("load_p%d_s%d", p, s));
+        model.addEquality(LinearExpr.sum(terms.toArray(new BoolVar[0])), load[p][s]);
+        model.addLessOrEqual(load[p][s], 1).onlyEnforceIf(guard.get(Family.TEACHER_CONFLICT));
+      }
+    }
+
+    int k = inst.maxConsecutiveTeaching;
+    for (int p = 0; p < P; p++) {
+      for (int d = 0; d < inst.numDays(); d++) {
+        int[] day = inst.daySlots[d];
+        IntVar[] terms = loads(load[p], day, 0, day.length);
+        if (terms.length > 0) {
+          model.addLessOrEqual(LinearExpr.sum(terms), inst.allowedPerDay(p, d))
+            .onlyEnforceIf(guard.get(Family.DAILY_LIMIT));
+        }
+        for (int i = 0; i + k + 1 <= day.length; i++) {
+          IntVar[] window = loads(load[p], day, i, i + k + 1);
+          if (window.length == 0) continue;
+          model.addLessOrEqual(LinearExpr.sum(window), k).onlyEnforceIf(guard.get(Family.CONSECUTIVE_LIMIT));
+        }
+      }
+    }
+  }
+
+  private static IntVar[] loads(IntVar[] load, int[] slots, int from, int to) {
+    List<IntVar> out = new ArrayList<>();
+    for (int i = from; i < to; i++) if (load[slots[i]] != null) out.add(load[slots[i]]);
+    return out.toArray(new IntVar[0]);
+  }
+
+  private static List<List<BoolVar>> buckets(int n) {
+    List<List<BoolVar>> b = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) b.add(new ArrayList<>());
+    return b;
+  }
+}
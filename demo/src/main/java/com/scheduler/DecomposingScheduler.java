@@ -0,0 +1,219 @@
+package com.scheduler;
+
+import com.google.ortools.sat.CpSolverStatus;
+import com.scheduler.SchedulerModel.BuildStats;
+import com.scheduler.SchedulerModel.Construction;
+import com.scheduler.SchedulerModel.Layout;
+import com.scheduler.SchedulerModel.SolutionResult;
+import com.scheduler.SchedulerModel.SolveStats;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Splits an instance into independent subproblems and solves them in parallel. Courses, teachers and
+// room types are nodes of a compatibility graph (course-eligible teacher, course-required room type);
+// each connected component only competes for its own teachers and its own rooms, so its schedule can
+// be found separately and the results concatenated. Courses that share a teacher or a room type end up
+// in the same component by construction.
+public class DecomposingScheduler implements ScheduleSolver {
+  private final CompiledInstance inst;
+  private final Layout layout;
+  private final SolverOptions options;
+  private final ForkJoinPool pool;
+  private ObjectiveWeights weights;
+  private Construction construction = Construction.OBJECTS;
+  private boolean variableNames = true;
+  private boolean roomClasses;
+  private volatile BuildStats lastBuildStats;
+  private volatile SolveStats lastSolveStats;
+
+  public DecomposingScheduler(CompiledInstance inst, Layout layout, SolverOptions options) {
+    this(inst, layout, options, ForkJoinPool.commonPool());
+  }
+
+  public DecomposingScheduler(CompiledInstance inst, Layout layout, SolverOptions options, ForkJoinPool pool) {
+    this.inst = inst;
+    this.layout = layout;
+    this.options = options;
+    this.pool = pool;
+  }
+
+  // Optimizes each component on its own; the reported objective is the sum of theirs, so terms that
+  // span teachers (load imbalance) are balanced within a component, not across the whole school
+  public DecomposingScheduler optimize(ObjectiveWeights weights) {
+    this.weights = weights;
+    return this;
+  }
+
+  // Options passed on to the SchedulerModel of every component
+  public DecomposingScheduler construction(Construction construction) {
+    this.construction = construction;
+    return this;
+  }
+
+  public DecomposingScheduler variableNames(boolean names) {
+    this.variableNames = names;
+    return this;
+  }
+
+  public DecomposingScheduler roomClasses(boolean on) {
+    this.roomClasses = on;
+    return this;
+  }
+
+  // One independent subproblem, in ids of the full instance
+  public static final class Component {
+    public final int[] teachers;
+    public final int[] courses;
+    public final int[] rooms;
+
+    Component(int[] teachers, int[] courses, int[] rooms) {
+      this.teachers = teachers;
+      this.courses = courses;
+      this.rooms = rooms;
+    }
+  }
+
+  // Connected components that contain at least one course, largest first
+  public static List<Component> components(CompiledInstance inst) {
+    int C = inst.numCourses;
+    int P = inst.numTeachers;
+    int T = inst.roomTypeNames.length;
+    // union-find over [courses | teachers | room types]
+    int[] parent = new int[C + P + T];
+    for (int i = 0; i < parent.length; i++) parent[i] = i;
+    for (int c = 0; c < C; c++) {
+      for (int p : inst.courseTeachers[c]) union(parent, c, C + p);
+      union(parent, c, C + P + inst.courseRoomType[c]);
+    }
+
+    Map<Integer, List<Integer>> courses = new LinkedHashMap<>();
+    for (int c = 0; c < C; c++) courses.computeIfAbsent(find(parent, c), k -> new ArrayList<>()).add(c);
+    Map<Integer, List<Integer>> teachers = new HashMap<>();
+    for (int p = 0; p < P; p++) teachers.computeIfAbsent(find(parent, C + p), k -> new ArrayList<>()).add(p);
+    Map<Integer, List<Integer>> rooms = new HashMap<>();
+    for (int r = 0; r < inst.numRooms; r++) {
+      rooms.computeIfAbsent(find(parent, C + P + inst.roomType[r]), k -> new ArrayList<>()).add(r);
+    }
+
+    List<Component> out = new ArrayList<>();
+    for (Map.Entry<Integer, List<Integer>> e : courses.entrySet()) {
+      out.add(new Component(toArray(teachers.get(e.getKey())), toArray(e.getValue()), toArray(rooms.get(e.getKey()))));
+    }
+    out.sort(Comparator.comparingInt((Component k) -> -k.courses.length));
+    return out;
+  }
+
+  @Override
+  public Optional<SolutionResult> solve() {
+    inst.requireSingleSessions("DecomposingScheduler");
+    List<Component> parts = components(inst);
+    // share the cores between concurrently running components unless the caller fixed a worker count
+    SolverOptions perPart = options.copy();
+    if (options.getWorkers() == 0) {
+      int concurrent = Math.max(1, Math.min(parts.size(), pool.getParallelism()));
+      perPart.workers(Math.max(1, Runtime.getRuntime().availableProcessors() / concurrent));
+    }
+
+    List<RecursiveTask<Part>> tasks = new ArrayList<>();
+    for (Component k : parts) {
+      tasks.add(new RecursiveTask<>() {
+        @Override
+        protected Part compute() {
+          SchedulerModel model = new SchedulerModel(inst.subset(k.teachers, k.courses, k.rooms), layout, perPart)
+            .construction(construction).variableNames(variableNames).roomClasses(roomClasses);
+          if (weights != null) model.optimize(weights);
+          Optional<SolutionResult> res = model.solve();
+          return new Part(res, model.getBuildStats(), model.getSolveStats());
+        }
+      });
+    }
+    pool.invoke(new RecursiveTask<Void>() {
+      @Override
+      protected Void compute() {
+        ForkJoinTask.invokeAll(tasks);
+        return null;
+      }
+    });
+
+    SolutionResult merged = new SolutionResult();
+    boolean feasible = true;
+    int variables = 0, constraints = 0;
+    long buildMillis = 0, conflicts = 0, branches = 0;
+    double wall = 0, objective = 0, bound = 0;
+    CpSolverStatus status = CpSolverStatus.OPTIMAL;
+    for (RecursiveTask<Part> t : tasks) {
+      Part part = t.join();
+      variables += part.build.variables;
+      constraints += part.build.constraints;
+      buildMillis = Math.max(buildMillis, part.build.buildMillis);
+      wall = Math.max(wall, part.solve.wallSeconds);
+      conflicts += part.solve.conflicts;
+      branches += part.solve.branches;
+      objective += part.solve.objective;
+      bound += part.solve.bestBound;
+      if (part.solve.status != CpSolverStatus.OPTIMAL) status = worse(status, part.solve.status);
+      if (part.result.isPresent()) {
+        merged.assignments.addAll(part.result.get().assignments);
+      } else {
+        feasible = false;
+      }
+    }
+    lastBuildStats = new BuildStats(layout.name() + " x" + parts.size() + " components",
+      variables, constraints, buildMillis);
+    lastSolveStats = new SolveStats(status, perPart.getWorkers(), wall, conflicts, branches, objective, bound,
+      parts.size() + " components");
+    merged.stats = lastSolveStats;
+    return feasible ? Optional.of(merged) : Optional.empty();
+  }
+
+  @Override
+  public BuildStats getBuildStats() {
+    return lastBuildStats;
+  }
+
+  @Override
+  public SolveStats getSolveStats() {
+    return lastSolveStats;
+  }
+
+  private static final class Part {
+    final Optional<SolutionResult> result;
+    final BuildStats build;
+    final SolveStats solve;
+
+    Part(Optional<SolutionResult> result, BuildStats build, SolveStats solve) {
+      this.result = result;
+      this.build = build;
+      this.solve = solve;
+    }
+  }
+
+  // OPTIMAL < FEASIBLE < UNKNOWN < INFEASIBLE < MODEL_INVALID
+  private static CpSolverStatus worse(CpSolverStatus a, CpSolverStatus b) {
+    List<CpSolverStatus> order = Arrays.asList(CpSolverStatus.OPTIMAL, CpSolverStatus.FEASIBLE,
+      CpSolverStatus.UNKNOWN, CpSolverStatus.INFEASIBLE, CpSolverStatus.MODEL_INVALID);
+    return order.indexOf(a) >= order.indexOf(b) ? a : b;
+  }
+
+  private static int find(int[] parent, int x) {
+    while (parent[x] != x) {
+      parent[x] = parent[parent[x]];
+      x = parent[x];
+    }
+    return x;
+  }
+
+  private static void union(int[] parent, int a, int b) {
+    parent[find(parent, a)] = find(parent, b);
+  }
+
+  private static int[] toArray(List<Integer> ids) {
+    if (ids == null) return new int[0];
+    int[] out = new int[ids.size()];
+    for (int i = 0; i < out.length; i++) out[i] = ids.get(i);
+    return out;
+  }
+}
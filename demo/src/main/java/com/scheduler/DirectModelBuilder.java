@@ -0,0 +1,148 @@
+package com.scheduler;
+
+import com.google.ortools.sat.*;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// SchedulerModel's constraints written straight into the CpModelProto builder. Literals go from
+// primitive arrays into the proto's repeated fields: no BoolVar, LinearExpr, List or name per term.
+// The room and teacher buckets are CSR arrays (offsets + flat proto indices) filled in two passes;
+// course buckets need none, candidates are enumerated course by course.
+final class DirectModelBuilder {
+  private final CompiledInstance inst;
+  private final CpModelProto.Builder proto;
+  private final boolean names;
+  // see SchedulerModel.background; null when there is none
+  private final BitSet[] background;
+  // classes per room and slot, null for one (room classes)
+  private final int[] roomCapacity;
+  private final MetricsRecorder metrics;
+  // literals of the constraint being written
+  private int[] scratch = new int[16];
+
+  DirectModelBuilder(CompiledInstance inst, CpModel model, boolean names, BitSet[] background,
+                     int[] roomCapacity, MetricsRecorder metrics) {
+    this.inst = inst;
+    this.proto = model.getBuilder();
+    this.names = names;
+    this.background = background;
+    this.roomCapacity = roomCapacity;
+    this.metrics = metrics;
+  }
+
+  // Same model as the object path of SchedulerModel.build, returned as proto indices.
+  // tuples holds n candidates as (c, s, r, p), course-major.
+  SchedulerModel.Built build(CpModel model, SchedulerModel.Layout layout, int[] tuples, int n) {
+    int C = inst.numCourses;
+    int S = inst.numSlots;
+    int R = inst.numRooms;
+    int P = inst.numTeachers;
+
+    // DENSE pins infeasible tuples through their domain instead of one equality each
+    int[] vars = new int[n];
+    int[] courseStart = new int[C + 1];
+    for (int i = 0; i < n; i++) {
+      int c = tuples[4 * i], s = tuples[4 * i + 1], r = tuples[4 * i + 2], p = tuples[4 * i + 3];
+      boolean fixed = layout == SchedulerModel.Layout.DENSE && !inst.isFeasible(c, s, r, p);
+      vars[i] = newBool(fixed ? 0 : 1, names ? String.format("c%d_s%d_r%d_p%d", c, s, r, p) : null);
+      courseStart[c + 1]++;
+    }
+    for (int c = 0; c < C; c++) courseStart[c + 1] += courseStart[c];
+    int[] roomStart = new int[R * S + 1];
+    int[] teacherStart = new int[P * S + 1];
+    for (int i = 0; i < n; i++) {
+      roomStart[tuples[4 * i + 2] * S + tuples[4 * i + 1] + 1]++;
+      teacherStart[tuples[4 * i + 3] * S + tuples[4 * i + 1] + 1]++;
+    }
+    int[] byRoomSlot = fill(roomStart, tuples, vars, n, 2, S);
+    int[] byTeacherSlot = fill(teacherStart, tuples, vars, n, 3, S);
+
+    // Each course exactly once
+    metrics.phase("exactly-once");
+    for (int c = 0; c < C; c++) linear(vars, courseStart[c], courseStart[c + 1], -1, 1, 1);
+
+    // One class per room per timeslot
+    metrics.phase("room-conflict");
+    for (int k = 0; k < R * S; k++) {
+      if (roomStart[k] == roomStart[k + 1]) continue;
+      linear(byRoomSlot, roomStart[k], roomStart[k + 1], -1, Long.MIN_VALUE, roomCapacity == null ? 1 : roomCapacity[k / S]);
+    }
+
+    // busy[p][s] = sum of the teacher's candidates at s, written as sum - busy == 0
+    metrics.phase("teacher-conflict");
+    int[] busy = new int[P * S];
+    Arrays.fill(busy, -1);
+    for (int p = 0; p < P; p++) {
+      for (int s = 0; s < S; s++) {
+        int k = p * S + s;
+        if (teacherStart[k] == teacherStart[k + 1]) continue;
+        busy[k] = newBool(1, names ? String.format("busy_p%d_s%d", p, s) : null);
+        linear(byTeacherSlot, teacherStart[k], teacherStart[k + 1], busy[k], 0, 0);
+      }
+    }
+
+    // Max classes per day and prep periods
+    metrics.phase("daily-limit");
+    for (int p = 0; p < P; p++) {
+      for (int d = 0; d < inst.numDays(); d++) {
+        int[] day = inst.daySlots[d];
+        int m = gather(busy, p * S, day, 0, day.length);
+        if (m == 0) continue;
+        int fixed = SchedulerModel.fixedCount(background, p, day, 0, day.length);
+        linear(scratch, 0, m, -1, Long.MIN_VALUE, inst.allowedPerDay(p, d) - fixed);
+      }
+    }
+
+    // Max consecutive teaching via sliding window per day
+    metrics.phase("consecutive");
+    int k = inst.maxConsecutiveTeaching;
+    for (int p = 0; p < P; p++) {
+      for (int[] day : inst.daySlots) {
+        for (int i = 0; i + k + 1 <= day.length; i++) {
+          int m = gather(busy, p * S, day, i, i + k + 1);
+          int fixed = SchedulerModel.fixedCount(background, p, day, i, i + k + 1);
+          if (m + fixed <= k) continue;
+          linear(scratch, 0, m, -1, Long.MIN_VALUE, k - fixed);
+        }
+      }
+    }
+    return new SchedulerModel.Built(inst, model, n, tuples, vars, busy, metrics);
+  }
+
+  private int newBool(long ub, String name) {
+    int index = proto.getVariablesCount();
+    IntegerVariableProto.Builder v = proto.addVariablesBuilder().addDomain(0).addDomain(ub);
+    if (name != null) v.setName(name);
+    return index;
+  }
+
+  // sum(lits[from, to)) - minus in [lb, ub]; minus < 0 when there is no subtracted literal
+  private void linear(int[] lits, int from, int to, int minus, long lb, long ub) {
+    LinearConstraintProto.Builder lin = proto.addConstraintsBuilder().getLinearBuilder();
+    for (int i = from; i < to; i++) lin.addVars(lits[i]).addCoeffs(1);
+    if (minus >= 0) lin.addVars(minus).addCoeffs(-1);
+    lin.addDomain(lb).addDomain(ub);
+  }
+
+  // Existing busy literals of one teacher over slots[from, to), into scratch
+  private int gather(int[] busy, int base, int[] slots, int from, int to) {
+    if (scratch.length < to - from) scratch = new int[to - from];
+    int m = 0;
+    for (int i = from; i < to; i++) {
+      int v = busy[base + slots[i]];
+      if (v >= 0) scratch[m++] = v;
+    }
+    return m;
+  }
+
+  // Turns per-key counts (shifted by one) into offsets and scatters each candidate's proto index
+  // under key (tuple field f) * S + slot
+  private static int[] fill(int[] start, int[] tuples, int[] vars, int n, int f, int S) {
+    for (int k = 0; k + 1 < start.length; k++) start[k + 1] += start[k];
+    int[] next = Arrays.copyOf(start, start.length - 1);
+    int[] flat = new int[n];
+    for (int i = 0; i < n; i++) flat[next[tuples[4 * i + f] * S + tuples[4 * i + 1]]++] = vars[i];
+    return flat;
+  }
+}
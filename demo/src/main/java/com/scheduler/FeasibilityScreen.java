@@ -0,0 +1,170 @@
+package com.scheduler;
+
+import java.util.*;
+
+// Cheap necessary conditions checked in plain Java before any model is built. Every check is linear
+// in the size of the instance (qualification, availability and room lists), so obviously broken
+// data is reported in milliseconds instead of after the solver's time limit. Passing the screen does
+// not prove feasibility; see ConflictDiagnoser for what is left.
+public final class FeasibilityScreen {
+  public enum Kind {
+    NO_QUALIFIED_TEACHER,
+    NO_AP_CERTIFIED_TEACHER,
+    NO_ROOM_OF_TYPE,
+    NO_COMMON_AVAILABILITY,
+    TEACHER_OVERLOADED,
+    ROOM_TYPE_OVERLOADED,
+    STAFF_OVERLOADED
+  }
+
+  public static class Issue {
+    public final Kind kind;
+    // the course, teacher or room type the issue is about
+    public final String subject;
+    public final String message;
+
+    public Issue(Kind kind, String subject, String message) {
+      this.kind = kind;
+      this.subject = subject;
+      this.message = message;
+    }
+
+    @Override
+    public String toString() {
+      return kind + " " + subject + ": " + message;
+    }
+  }
+
+  private FeasibilityScreen() {
+  }
+
+  public static List<Issue> screen(Config cfg) {
+    return screen(CompiledInstance.compile(cfg));
+  }
+
+  public static List<Issue> screen(CompiledInstance inst) {
+    List<Issue> issues = new ArrayList<>();
+    int C = inst.numCourses;
+    int S = inst.numSlots;
+    int P = inst.numTeachers;
+    int T = inst.roomTypeNames.length;
+
+    // Slots in which at least one room of each type is available
+    BitSet[] typeAvail = new BitSet[T];
+    for (int t = 0; t < T; t++) typeAvail[t] = new BitSet(S);
+    for (int r = 0; r < inst.numRooms; r++) typeAvail[inst.roomType[r]].or(inst.roomAvail[r]);
+
+    boolean[] hasQualified = new boolean[C];
+    for (int p = 0; p < P; p++) {
+      BitSet q = inst.qualified[p];
+      for (int c = q.nextSetBit(0); c >= 0; c = q.nextSetBit(c + 1)) hasQualified[c] = true;
+    }
+
+    // Per course: a teacher, a room, and a slot in which both are available
+    boolean[] placeable = new boolean[C];
+    for (int c = 0; c < C; c++) {
+      String course = inst.courses[c];
+      if (inst.courseTeachers[c].length == 0) {
+        if (!hasQualified[c]) {
+          issues.add(new Issue(Kind.NO_QUALIFIED_TEACHER, course, "no teacher is qualified"));
+        } else {
+          issues.add(new Issue(Kind.NO_AP_CERTIFIED_TEACHER, course,
+            "AP course, but none of the qualified teachers is AP-certified"));
+        }
+      }
+      if (inst.courseRooms[c].length == 0) {
+        issues.add(new Issue(Kind.NO_ROOM_OF_TYPE, course,
+          "needs a " + inst.roomTypeNames[inst.courseRoomType[c]] + " room and there is none"));
+      }
+      if (inst.courseTeachers[c].length == 0 || inst.courseRooms[c].length == 0) continue;
+      BitSet slots = new BitSet(S);
+      for (int p : inst.courseTeachers[c]) slots.or(inst.teacherAvail[p]);
+      slots.and(typeAvail[inst.courseRoomType[c]]);
+      if (slots.isEmpty()) {
+        issues.add(new Issue(Kind.NO_COMMON_AVAILABILITY, course,
+          "no slot in which an eligible teacher and a " + inst.roomTypeNames[inst.courseRoomType[c]]
+            + " room are both available"));
+      } else {
+        placeable[c] = true;
+      }
+    }
+
+    // Teacher load: courses only p can teach against what p can teach in a week
+    int[] capacity = new int[P];
+    int[] forced = new int[P];
+    for (int p = 0; p < P; p++) capacity[p] = weeklyCapacity(inst, p);
+    for (int c = 0; c < C; c++) {
+      if (inst.courseTeachers[c].length == 1) forced[inst.courseTeachers[c][0]]++;
+    }
+    long staffCapacity = 0;
+    for (int p = 0; p < P; p++) {
+      if (forced[p] > capacity[p]) {
+        issues.add(new Issue(Kind.TEACHER_OVERLOADED, inst.teachers[p],
+          String.format("is the only eligible teacher for %d courses but can teach at most %d classes "
+            + "(max %d per day, %d prep periods, max %d in a row, availability)",
+            forced[p], capacity[p], inst.maxClassesPerDay, inst.prepPeriods[p], inst.maxConsecutiveTeaching)));
+      }
+      if (!inst.eligible[p].isEmpty()) staffCapacity += capacity[p];
+    }
+    if (C > staffCapacity) {
+      issues.add(new Issue(Kind.STAFF_OVERLOADED, "all teachers",
+        String.format("%d courses but the teachers can teach at most %d classes in total", C, staffCapacity)));
+    }
+
+    // Hall-style count per room type: each slot hosts at most min(available rooms of the type,
+    // available teachers eligible for some course of the type) of its courses
+    int[] demand = new int[T];
+    for (int c = 0; c < C; c++) if (placeable[c]) demand[inst.courseRoomType[c]]++;
+    int[][] rooms = new int[T][S];
+    for (int r = 0; r < inst.numRooms; r++) {
+      BitSet a = inst.roomAvail[r];
+      for (int s = a.nextSetBit(0); s >= 0; s = a.nextSetBit(s + 1)) rooms[inst.roomType[r]][s]++;
+    }
+    int[][] teachers = new int[T][S];
+    boolean[] teachesType = new boolean[T];
+    for (int p = 0; p < P; p++) {
+      Arrays.fill(teachesType, false);
+      BitSet e = inst.eligible[p];
+      for (int c = e.nextSetBit(0); c >= 0; c = e.nextSetBit(c + 1)) teachesType[inst.courseRoomType[c]] = true;
+      BitSet a = inst.teacherAvail[p];
+      for (int t = 0; t < T; t++) {
+        if (!teachesType[t]) continue;
+        for (int s = a.nextSetBit(0); s >= 0; s = a.nextSetBit(s + 1)) teachers[t][s]++;
+      }
+    }
+    for (int t = 0; t < T; t++) {
+      if (demand[t] == 0) continue;
+      long supply = 0;
+      for (int s = 0; s < S; s++) supply += Math.min(rooms[t][s], teachers[t][s]);
+      if (demand[t] > supply) {
+        issues.add(new Issue(Kind.ROOM_TYPE_OVERLOADED, inst.roomTypeNames[t],
+          String.format("%d courses need this room type but only %d (room, slot) pairs have a room "
+            + "and an eligible teacher available", demand[t], supply)));
+      }
+    }
+    return issues;
+  }
+
+  // Classes p can teach in a week: per day the smallest of the daily limit (maxClassesPerDay and prep
+  // periods) and the most slots that can be filled without exceeding maxConsecutiveTeaching within the
+  // runs of available slots
+  static int weeklyCapacity(CompiledInstance inst, int p) {
+    int k = inst.maxConsecutiveTeaching;
+    int total = 0;
+    for (int d = 0; d < inst.numDays(); d++) {
+      int fillable = 0;
+      int run = 0;
+      for (int s : inst.daySlots[d]) {
+        if (inst.teacherAvail[p].get(s)) {
+          run++;
+        } else {
+          fillable += run - run / (k + 1);
+          run = 0;
+        }
+      }
+      fillable += run - run / (k + 1);
+      total += Math.min(fillable, inst.allowedPerDay(p, d));
+    }
+    return total;
+  }
+}
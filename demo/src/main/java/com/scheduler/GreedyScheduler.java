@@ -0,0 +1,141 @@
+package com.scheduler;
+
+import com.google.ortools.sat.CpSolverStatus;
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.BuildStats;
+import com.scheduler.SchedulerModel.SolutionResult;
+import com.scheduler.SchedulerModel.SolveStats;
+
+import java.util.*;
+
+// Constructive heuristic without CP-SAT: courses are placed one at a time, most constrained first
+// (fewest eligible teachers x rooms of the type x slots where both exist), each at the feasible
+// (slot, room, teacher) whose teacher has the least load overall and then on that day. It keeps the
+// hard rules of SchedulerModel - eligibility (qualification and AP), room type, availability, one
+// class per teacher and room and slot, allowedPerDay and maxConsecutiveTeaching - but never moves a
+// placed course, so it can miss schedules that exist. A complete result is valid as it stands and
+// serves as a full hint for CP-SAT (SchedulerModel.warmStart).
+public class GreedyScheduler implements ScheduleSolver {
+  private final CompiledInstance inst;
+  private final List<String> unplaced = new ArrayList<>();
+  private BuildStats lastBuildStats;
+  private SolveStats lastSolveStats;
+
+  public GreedyScheduler(Config cfg) {
+    this(CompiledInstance.compile(cfg));
+  }
+
+  public GreedyScheduler(CompiledInstance inst) {
+    this.inst = inst;
+  }
+
+  @Override
+  public BuildStats getBuildStats() {
+    return lastBuildStats;
+  }
+
+  @Override
+  public SolveStats getSolveStats() {
+    return lastSolveStats;
+  }
+
+  // Courses the last run could not place
+  public List<String> getUnplaced() {
+    return Collections.unmodifiableList(unplaced);
+  }
+
+  // The complete schedule, or empty when some course found no feasible place (see getUnplaced)
+  @Override
+  public Optional<SolutionResult> solve() {
+    SolutionResult res = schedule();
+    return unplaced.isEmpty() ? Optional.of(res) : Optional.empty();
+  }
+
+  // Places as many courses as it can; the result may be partial
+  public SolutionResult schedule() {
+    inst.requireSingleSessions("GreedyScheduler");
+    long start = System.nanoTime();
+    int C = inst.numCourses;
+    int S = inst.numSlots;
+    int D = inst.numDays();
+    int P = inst.numTeachers;
+
+    // position of each slot in its day, for the consecutive rule
+    int[] position = new int[S];
+    for (int[] ds : inst.daySlots) for (int i = 0; i < ds.length; i++) position[ds[i]] = i;
+
+    Integer[] order = new Integer[C];
+    long[] choices = new long[C];
+    for (int c = 0; c < C; c++) {
+      order[c] = c;
+      BitSet teacherSlots = new BitSet(S), roomSlots = new BitSet(S);
+      for (int p : inst.courseTeachers[c]) teacherSlots.or(inst.teacherAvail[p]);
+      for (int r : inst.courseRooms[c]) roomSlots.or(inst.roomAvail[r]);
+      teacherSlots.and(roomSlots);
+      choices[c] = (long) inst.courseTeachers[c].length * inst.courseRooms[c].length * teacherSlots.cardinality();
+    }
+    Arrays.sort(order, Comparator.comparingLong((Integer c) -> choices[c]).thenComparingInt(c -> c));
+
+    BitSet[] teacherBusy = new BitSet[P];
+    for (int p = 0; p < P; p++) teacherBusy[p] = new BitSet(S);
+    BitSet[] roomBusy = new BitSet[inst.numRooms];
+    for (int r = 0; r < inst.numRooms; r++) roomBusy[r] = new BitSet(S);
+    int[] load = new int[P];
+    int[] dayLoad = new int[P * D];
+    long tried = 0;
+
+    SolutionResult res = new SolutionResult();
+    unplaced.clear();
+    for (int c : order) {
+      int bestS = -1, bestR = -1, bestP = -1;
+      for (int p : inst.courseTeachers[c]) {
+        if (bestP >= 0 && load[p] > load[bestP]) continue;
+        BitSet avail = inst.teacherAvail[p];
+        for (int s = avail.nextSetBit(0); s >= 0; s = avail.nextSetBit(s + 1)) {
+          tried++;
+          int d = inst.slotDay[s];
+          if (teacherBusy[p].get(s) || dayLoad[p * D + d] >= inst.allowedPerDay(p, d)) continue;
+          if (bestP >= 0 && load[p] == load[bestP] && dayLoad[p * D + d] >= dayLoad[bestP * D + inst.slotDay[bestS]]) continue;
+          if (run(teacherBusy[p], inst.daySlots[d], position[s]) > inst.maxConsecutiveTeaching) continue;
+          int room = freeRoom(c, s, roomBusy);
+          if (room < 0) continue;
+          bestS = s;
+          bestR = room;
+          bestP = p;
+        }
+      }
+      if (bestP < 0) {
+        unplaced.add(inst.courses[c]);
+        continue;
+      }
+      teacherBusy[bestP].set(bestS);
+      roomBusy[bestR].set(bestS);
+      load[bestP]++;
+      dayLoad[bestP * D + inst.slotDay[bestS]]++;
+      res.assignments.add(new Assignment(inst.courses[c], inst.timeSlots[bestS], inst.rooms[bestR], inst.teachers[bestP]));
+    }
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    lastBuildStats = new BuildStats("GREEDY", 0, 0, 0);
+    lastSolveStats = new SolveStats(unplaced.isEmpty() ? CpSolverStatus.FEASIBLE : CpSolverStatus.UNKNOWN, 1,
+      seconds, 0, 0, 0, 0, "greedy: " + res.assignments.size() + " of " + C + " courses placed, " + tried
+      + " slots tried");
+    res.stats = lastSolveStats;
+    return res;
+  }
+
+  // Length of the run of busy slots through position i of the day, counting i itself
+  private static int run(BitSet busy, int[] day, int i) {
+    int n = 1;
+    for (int j = i - 1; j >= 0 && busy.get(day[j]); j--) n++;
+    for (int j = i + 1; j < day.length && busy.get(day[j]); j++) n++;
+    return n;
+  }
+
+  private int freeRoom(int c, int s, BitSet[] roomBusy) {
+    for (int r : inst.courseRooms[c]) {
+      if (inst.roomAvail[r].get(s) && !roomBusy[r].get(s)) return r;
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,438 @@
+package com.scheduler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Line-oriented instance files. One record per line, comma-separated, '#' starts a comment; a field
+// may be wrapped in double quotes when it contains a comma. Names must be declared before they are
+// referenced:
+//
+//   limits,<maxConsecutiveTeaching>,<maxClassesPerDay>          (default 3,5)
+//   slot,<day> <startHour>-<endHour>
+//   room,<name>[,<building>[,<type>]]                           (type defaults to standard)
+//   teacher,<name>[,<prepPeriods>]
+//   course,<name>[,<roomType>[,ap]]
+//   sessions,<course>,<meetingsPerWeek>[,<slotsPerMeeting>]     (default 1,1)
+//   qualified,<teacher>,<course>
+//   certified,<teacher>,<course>                                (AP certification)
+//   teacher_available,<teacher>,<slot>
+//   room_available,<room>,<slot>
+//
+// read() maps the file and parses it in one pass straight into a CompiledInstance: references are
+// resolved by hashing the bytes in the mapped buffer, so the only objects allocated per line are the
+// names of declarations. Nothing like Config's per-teacher List<String> is built.
+public final class InstanceFile {
+  // mapped window; lines are parsed whole, so no line may be longer than this
+  private static final int CHUNK = 64 << 20;
+  private static final int MAX_FIELDS = 4;
+
+  private static final byte[] LIMITS = ascii("limits");
+  private static final byte[] SLOT = ascii("slot");
+  private static final byte[] ROOM = ascii("room");
+  private static final byte[] TEACHER = ascii("teacher");
+  private static final byte[] COURSE = ascii("course");
+  private static final byte[] QUALIFIED = ascii("qualified");
+  private static final byte[] CERTIFIED = ascii("certified");
+  private static final byte[] TEACHER_AVAILABLE = ascii("teacher_available");
+  private static final byte[] ROOM_AVAILABLE = ascii("room_available");
+  private static final byte[] SESSIONS = ascii("sessions");
+  private static final byte[] AP = ascii("ap");
+  private static final ByteBuffer STANDARD = ByteBuffer.wrap(ascii("standard"));
+
+  private InstanceFile() {
+  }
+
+  public static CompiledInstance read(Path file) throws IOException {
+    Parser parser = new Parser(file.toString());
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = ch.size();
+      long pos = 0;
+      while (pos < size) {
+        long len = Math.min(CHUNK, size - pos);
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+        boolean last = pos + len == size;
+        int consumed = parser.parse(buf, (int) len, last);
+        if (consumed == 0) throw parser.error("line longer than " + CHUNK + " bytes");
+        pos += consumed;
+      }
+    }
+    return parser.finish();
+  }
+
+  // Parses data[position, limit) already in memory, e.g. a request body; source labels error messages
+  public static CompiledInstance read(ByteBuffer data, String source) throws IOException {
+    Parser parser = new Parser(source);
+    ByteBuffer rest = data.slice();
+    parser.parse(rest, rest.limit(), true);
+    return parser.finish();
+  }
+
+  // Writes cfg in the format read() expects
+  public static void write(Config cfg, Path file) throws IOException {
+    try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      w.write("limits," + cfg.maxConsecutiveTeaching + "," + cfg.maxClassesPerDay + "\n");
+      for (String s : cfg.timeSlots) line(w, "slot", s);
+      for (String r : cfg.rooms) {
+        line(w, "room", r, cfg.roomBuildings.getOrDefault(r, ""), cfg.roomTypes.getOrDefault(r, "standard"));
+      }
+      for (String t : cfg.teachers) {
+        line(w, "teacher", t, String.valueOf(cfg.requiredPrepPeriods.getOrDefault(t, 0)));
+      }
+      for (String c : cfg.courses) {
+        String type = cfg.courseRoomRequirements.getOrDefault(c, "standard");
+        if (cfg.apCourses.contains(c)) line(w, "course", c, type, "ap");
+        else line(w, "course", c, type);
+        int sessions = cfg.courseSessions.getOrDefault(c, 1);
+        int length = cfg.courseSessionLength.getOrDefault(c, 1);
+        if (sessions != 1 || length != 1) line(w, "sessions", c, String.valueOf(sessions), String.valueOf(length));
+      }
+      for (String t : cfg.teachers) {
+        for (String c : cfg.teacherQualifications.getOrDefault(t, List.of())) line(w, "qualified", t, c);
+        for (String c : cfg.apCertified.getOrDefault(t, List.of())) line(w, "certified", t, c);
+        for (String s : cfg.teacherAvailability.getOrDefault(t, List.of())) line(w, "teacher_available", t, s);
+      }
+      for (String r : cfg.rooms) {
+        for (String s : cfg.roomAvailability.getOrDefault(r, List.of())) line(w, "room_available", r, s);
+      }
+    }
+  }
+
+  private static void line(Writer w, String... fields) throws IOException {
+    for (int i = 0; i < fields.length; i++) {
+      if (i > 0) w.write(',');
+      String f = fields[i];
+      if (f.indexOf(',') >= 0 || (!f.isEmpty() && f.charAt(0) == '"')) {
+        if (f.indexOf('"') >= 0) throw new IllegalArgumentException("names cannot contain both ',' and '\"': " + f);
+        w.write('"');
+        w.write(f);
+        w.write('"');
+      } else {
+        w.write(f);
+      }
+    }
+    w.write('\n');
+  }
+
+  private static final class Parser {
+    // file name or other label for error messages
+    private final String source;
+    private long lineNo;
+
+    private final NameTable slots = new NameTable();
+    private final NameTable rooms = new NameTable();
+    private final NameTable teachers = new NameTable();
+    private final NameTable courses = new NameTable();
+    private final NameTable days = new NameTable();
+    private final NameTable types = new NameTable();
+    private final NameTable buildings = new NameTable();
+
+    private int maxConsecutive = 3;
+    private int maxPerDay = 5;
+    private final Ints slotDay = new Ints();
+    private final Ints slotHour = new Ints();
+    private final Ints roomType = new Ints();
+    private final Ints roomBuilding = new Ints();
+    private final Ints prep = new Ints();
+    private final Ints courseType = new Ints();
+    private final BitSet apCourse = new BitSet();
+    private final Ints sessions = new Ints();
+    private final Ints sessionLength = new Ints();
+    private final List<BitSet> qualified = new ArrayList<>();
+    private final List<BitSet> certified = new ArrayList<>();
+    private final List<BitSet> teacherAvail = new ArrayList<>();
+    private final List<BitSet> roomAvail = new ArrayList<>();
+
+    // field bounds of the current line
+    private final int[] from = new int[MAX_FIELDS];
+    private final int[] to = new int[MAX_FIELDS];
+
+    Parser(String source) {
+      this.source = source;
+    }
+
+    // Parses the complete lines of buf[0, len) and returns the bytes consumed; with last, a final
+    // line without a newline counts as complete
+    int parse(ByteBuffer buf, int len, boolean last) throws IOException {
+      int start = 0;
+      while (start < len) {
+        int end = start;
+        while (end < len && buf.get(end) != '\n') end++;
+        if (end == len && !last) break;
+        lineNo++;
+        int stop = end;
+        if (stop > start && buf.get(stop - 1) == '\r') stop--;
+        record(buf, start, stop);
+        start = end + 1;
+      }
+      return Math.min(start, len);
+    }
+
+    private void record(ByteBuffer buf, int start, int end) throws IOException {
+      while (start < end && buf.get(start) == ' ') start++;
+      if (start == end || buf.get(start) == '#') return;
+      int n = split(buf, start, end);
+
+      if (is(buf, 0, TEACHER_AVAILABLE)) {
+        need(n, 3);
+        availability(teacherAvail, ref(teachers, buf, 1, "teacher"), ref(slots, buf, 2, "slot"));
+      } else if (is(buf, 0, ROOM_AVAILABLE)) {
+        need(n, 3);
+        availability(roomAvail, ref(rooms, buf, 1, "room"), ref(slots, buf, 2, "slot"));
+      } else if (is(buf, 0, QUALIFIED)) {
+        need(n, 3);
+        qualified.get(ref(teachers, buf, 1, "teacher")).set(ref(courses, buf, 2, "course"));
+      } else if (is(buf, 0, CERTIFIED)) {
+        need(n, 3);
+        certified.get(ref(teachers, buf, 1, "teacher")).set(ref(courses, buf, 2, "course"));
+      } else if (is(buf, 0, SLOT)) {
+        need(n, 2);
+        declare(slots, buf, 1, "slot");
+        // "<day> <startHour>-<endHour>"
+        int sp = from[1];
+        while (sp < to[1] && buf.get(sp) != ' ') sp++;
+        if (sp == to[1]) throw error("slot must read \"<day> <startHour>-<endHour>\"");
+        int day = days.get(buf, from[1], sp);
+        if (day < 0) day = days.add(buf, from[1], sp);
+        int dash = sp + 1;
+        while (dash < to[1] && buf.get(dash) != '-') dash++;
+        slotDay.add(day);
+        slotHour.add(parseInt(buf, sp + 1, dash, 0));
+      } else if (is(buf, 0, ROOM)) {
+        need(n, 2);
+        declare(rooms, buf, 1, "room");
+        roomBuilding.add(n > 2 ? intern(buildings, buf, from[2], to[2]) : intern(buildings, buf, 0, 0));
+        roomType.add(n > 3 && to[3] > from[3] ? intern(types, buf, from[3], to[3]) : internStandard());
+        roomAvail.add(new BitSet());
+      } else if (is(buf, 0, TEACHER)) {
+        need(n, 2);
+        declare(teachers, buf, 1, "teacher");
+        prep.add(n > 2 ? parseInt(buf, from[2], to[2], 0) : 0);
+        qualified.add(new BitSet());
+        certified.add(new BitSet());
+        teacherAvail.add(new BitSet());
+      } else if (is(buf, 0, COURSE)) {
+        need(n, 2);
+        int c = declare(courses, buf, 1, "course");
+        courseType.add(n > 2 && to[2] > from[2] ? intern(types, buf, from[2], to[2]) : internStandard());
+        if (n > 3 && is(buf, 3, AP)) apCourse.set(c);
+        sessions.add(1);
+        sessionLength.add(1);
+      } else if (is(buf, 0, SESSIONS)) {
+        need(n, 3);
+        int c = ref(courses, buf, 1, "course");
+        sessions.set(c, parseInt(buf, from[2], to[2], 1));
+        if (n > 3) sessionLength.set(c, parseInt(buf, from[3], to[3], 1));
+      } else if (is(buf, 0, LIMITS)) {
+        need(n, 3);
+        maxConsecutive = parseInt(buf, from[1], to[1], 1);
+        maxPerDay = parseInt(buf, from[2], to[2], 1);
+      } else {
+        throw error("unknown record type");
+      }
+    }
+
+    // Splits [start, end) at commas into from/to; returns the field count
+    private int split(ByteBuffer buf, int start, int end) throws IOException {
+      int n = 0;
+      int i = start;
+      while (true) {
+        if (n == MAX_FIELDS) throw error("too many fields");
+        if (i < end && buf.get(i) == '"') {
+          int close = i + 1;
+          while (close < end && buf.get(close) != '"') close++;
+          if (close == end) throw error("unterminated quote");
+          from[n] = i + 1;
+          to[n] = close;
+          i = close + 1;
+          if (i < end && buf.get(i) != ',') throw error("expected ',' after quoted field");
+        } else {
+          int j = i;
+          while (j < end && buf.get(j) != ',') j++;
+          from[n] = i;
+          to[n] = j;
+          i = j;
+        }
+        n++;
+        if (i >= end) return n;
+        i++; // comma
+      }
+    }
+
+    private boolean is(ByteBuffer buf, int field, byte[] word) {
+      if (to[field] - from[field] != word.length) return false;
+      for (int i = 0; i < word.length; i++) if (buf.get(from[field] + i) != word[i]) return false;
+      return true;
+    }
+
+    private int declare(NameTable table, ByteBuffer buf, int field, String what) throws IOException {
+      if (table.get(buf, from[field], to[field]) >= 0) throw error("duplicate " + what);
+      return table.add(buf, from[field], to[field]);
+    }
+
+    private int ref(NameTable table, ByteBuffer buf, int field, String what) throws IOException {
+      int id = table.get(buf, from[field], to[field]);
+      if (id < 0) throw error("unknown " + what + " " + table.text(buf, from[field], to[field]));
+      return id;
+    }
+
+    private static int intern(NameTable table, ByteBuffer buf, int from, int to) {
+      int id = table.get(buf, from, to);
+      return id >= 0 ? id : table.add(buf, from, to);
+    }
+
+    private int internStandard() {
+      return intern(types, STANDARD, 0, STANDARD.capacity());
+    }
+
+    private static void availability(List<BitSet> sets, int owner, int slot) {
+      sets.get(owner).set(slot);
+    }
+
+    private void need(int n, int fields) throws IOException {
+      if (n < fields) throw error("expected at least " + fields + " fields");
+    }
+
+    // A decimal number of at least min
+    private int parseInt(ByteBuffer buf, int from, int to, int min) throws IOException {
+      if (from == to) throw error("expected a number");
+      int v = 0;
+      for (int i = from; i < to; i++) {
+        int d = buf.get(i) - '0';
+        if (d < 0 || d > 9) throw error("expected a number");
+        if (v > (Integer.MAX_VALUE - d) / 10) throw error("number out of range");
+        v = v * 10 + d;
+      }
+      if (v < min) throw error("expected a number of at least " + min);
+      return v;
+    }
+
+    IOException error(String message) {
+      return new IOException(source + ":" + lineNo + ": " + message);
+    }
+
+    CompiledInstance finish() {
+      int C = courses.size();
+      int P = teachers.size();
+      BitSet[] qual = qualified.toArray(new BitSet[0]);
+      BitSet[] eligible = new BitSet[P];
+      for (int p = 0; p < P; p++) {
+        BitSet can = (BitSet) qual[p].clone();
+        // AP courses need the certification too
+        BitSet missing = (BitSet) apCourse.clone();
+        missing.andNot(certified.get(p));
+        can.andNot(missing);
+        eligible[p] = can;
+      }
+      boolean[] ap = new boolean[C];
+      for (int c = apCourse.nextSetBit(0); c >= 0; c = apCourse.nextSetBit(c + 1)) ap[c] = true;
+
+      return new CompiledInstance(teachers.names(), courses.names(), slots.names(), rooms.names(),
+        days.names(), slotDay.toArray(), slotHour.toArray(),
+        types.names(), roomType.toArray(), buildings.names(), roomBuilding.toArray(),
+        courseType.toArray(), ap, sessions.toArray(), sessionLength.toArray(), qual, eligible,
+        teacherAvail.toArray(new BitSet[0]), roomAvail.toArray(new BitSet[0]), prep.toArray(),
+        maxConsecutive, maxPerDay);
+    }
+  }
+
+  // Open-addressing map from UTF-8 name bytes to dense ids. Lookups hash and compare straight from
+  // the source buffer; only add() copies the bytes.
+  private static final class NameTable {
+    private byte[][] keys = new byte[64][];
+    private int[] ids = new int[64];
+    private final List<String> names = new ArrayList<>();
+
+    int size() {
+      return names.size();
+    }
+
+    String[] names() {
+      return names.toArray(new String[0]);
+    }
+
+    int get(ByteBuffer buf, int from, int to) {
+      int mask = keys.length - 1;
+      for (int i = hash(buf, from, to) & mask; keys[i] != null; i = (i + 1) & mask) {
+        if (equal(keys[i], buf, from, to)) return ids[i];
+      }
+      return -1;
+    }
+
+    // Caller checks the name is absent
+    int add(ByteBuffer buf, int from, int to) {
+      if (2 * (names.size() + 1) > keys.length) grow();
+      byte[] key = new byte[to - from];
+      for (int i = 0; i < key.length; i++) key[i] = buf.get(from + i);
+      int id = names.size();
+      insert(key, id);
+      names.add(new String(key, StandardCharsets.UTF_8));
+      return id;
+    }
+
+    String text(ByteBuffer buf, int from, int to) {
+      byte[] b = new byte[to - from];
+      for (int i = 0; i < b.length; i++) b[i] = buf.get(from + i);
+      return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private void insert(byte[] key, int id) {
+      int mask = keys.length - 1;
+      int i = hash(ByteBuffer.wrap(key), 0, key.length) & mask;
+      while (keys[i] != null) i = (i + 1) & mask;
+      keys[i] = key;
+      ids[i] = id;
+    }
+
+    private void grow() {
+      byte[][] oldKeys = keys;
+      int[] oldIds = ids;
+      keys = new byte[oldKeys.length * 2][];
+      ids = new int[oldKeys.length * 2];
+      for (int i = 0; i < oldKeys.length; i++) if (oldKeys[i] != null) insert(oldKeys[i], oldIds[i]);
+    }
+
+    private static int hash(ByteBuffer buf, int from, int to) {
+      int h = 0;
+      for (int i = from; i < to; i++) h = 31 * h + buf.get(i);
+      return h ^ (h >>> 16);
+    }
+
+    private static boolean equal(byte[] key, ByteBuffer buf, int from, int to) {
+      if (key.length != to - from) return false;
+      for (int i = 0; i < key.length; i++) if (key[i] != buf.get(from + i)) return false;
+      return true;
+    }
+  }
+
+  // Growable int array
+  private static final class Ints {
+    private int[] a = new int[16];
+    private int n;
+
+    void add(int v) {
+      if (n == a.length) a = Arrays.copyOf(a, n * 2);
+      a[n++] = v;
+    }
+
+    void set(int i, int v) {
+      a[i] = v;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(a, n);
+    }
+  }
+
+  private static byte[] ascii(String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,300 @@
+package com.scheduler;
+
+import com.google.ortools.Loader;
+import com.google.ortools.sat.*;
+import com.google.ortools.util.Domain;
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.BuildStats;
+import com.scheduler.SchedulerModel.SolutionResult;
+import com.scheduler.SchedulerModel.SolveStats;
+
+import java.util.*;
+
+// Interval formulation for long horizons and multi-session courses. Course c meets courseSessions[c]
+// times a week, on different days, each time for sessionLength[c] consecutive slots of one day.
+//
+// Time is an axis on which each day's slots (ordered by hour, from slotInfo) are consecutive and days
+// are one unused position apart; a session's start domain only holds starts whose run stays inside
+// its day. The teacher, chosen once per course, and the room, chosen per session, each get an
+// optional interval of the session, and one addNoOverlap per teacher and per room replaces the
+// per-slot conflict sums. Unavailable slots are fixed intervals in the same NoOverlap. The model grows
+// with sessions x (eligible teachers + rooms of the type) + teachers x slots, not with
+// courses x slots x rooms x teachers.
+//
+// Daily and consecutive limits use idle[p][t], an optional one-slot interval in the teacher's
+// NoOverlap: it can only be set where p teaches nothing. Every window of maxConsecutiveTeaching + 1
+// slots needs an idle slot and every day at least (slots - allowedPerDay) of them; unavailable slots
+// count as idle without a variable. Each occupied slot becomes one Assignment.
+public class IntervalSchedulerModel implements ScheduleSolver {
+  private final CompiledInstance inst;
+  private final SolverOptions options;
+  private boolean variableNames = true;
+  private BuildStats lastBuildStats;
+  private SolveStats lastSolveStats;
+  private SolveMetrics lastMetrics;
+
+  public IntervalSchedulerModel(Config cfg) {
+    this(CompiledInstance.compile(cfg), SolverOptions.defaults());
+  }
+
+  public IntervalSchedulerModel(CompiledInstance inst, SolverOptions options) {
+    this.inst = inst;
+    this.options = options;
+  }
+
+  // As SchedulerModel.variableNames: names such as start_c3_k1 for readable models and logs, at one
+  // String per variable and interval. Off, they are unnamed.
+  public IntervalSchedulerModel variableNames(boolean names) {
+    this.variableNames = names;
+    return this;
+  }
+
+  @Override
+  public BuildStats getBuildStats() {
+    return lastBuildStats;
+  }
+
+  @Override
+  public SolveStats getSolveStats() {
+    return lastSolveStats;
+  }
+
+  public SolveMetrics getMetrics() {
+    return lastMetrics;
+  }
+
+  @Override
+  public Optional<SolutionResult> solve() {
+    long buildStart = System.nanoTime();
+    MetricsRecorder metrics = new MetricsRecorder(options.getMetricsListener() != null);
+    metrics.phase("load-natives");
+    Loader.loadNativeLibraries();
+    CpModel model = new CpModel();
+    metrics.attach(model);
+    metrics.phase("variables");
+
+    int C = inst.numCourses;
+    int S = inst.numSlots;
+    int R = inst.numRooms;
+    int P = inst.numTeachers;
+    int D = inst.numDays();
+
+    // position of slot s on the time axis: day * stride + index within the day
+    int width = 0;
+    for (int[] day : inst.daySlots) width = Math.max(width, day.length);
+    int stride = width + 1;
+    long[] position = new long[S];
+    for (int d = 0; d < D; d++) {
+      for (int i = 0; i < inst.daySlots[d].length; i++) position[inst.daySlots[d][i]] = (long) d * stride + i;
+    }
+
+    // start[c][k] per session; teacherOf[c][j] for courseTeachers[c][j]; roomOf[c][k][j] for courseRooms[c][j]
+    IntVar[][] start = new IntVar[C][];
+    BoolVar[][] teacherOf = new BoolVar[C][];
+    BoolVar[][][] roomOf = new BoolVar[C][][];
+    List<List<IntervalVar>> teacherIntervals = lists(P);
+    List<List<IntervalVar>> roomIntervals = lists(R);
+
+    for (int c = 0; c < C; c++) {
+      int sessions = inst.courseSessions[c];
+      int len = inst.sessionLength[c];
+      if (sessions < 1 || len < 1) {
+        throw new IllegalArgumentException(inst.courses[c] + ": sessions and session length must be at least 1");
+      }
+      long[] starts = validStarts(c, len, stride);
+      if (starts.length == 0) {
+        // no run of len slots has an eligible teacher and a matching room: unsatisfiable
+        model.addBoolOr(new Literal[0]);
+        continue;
+      }
+      int[] teachers = inst.courseTeachers[c];
+      int[] rooms = inst.courseRooms[c];
+      teacherOf[c] = new BoolVar[teachers.length];
+      for (int j = 0; j < teachers.length; j++) {
+        teacherOf[c][j] = model.newBoolVar(variableNames ? String.format("t_c%d_p%d", c, teachers[j]) : "");
+      }
+      model.addExactlyOne(teacherOf[c]);
+
+      start[c] = new IntVar[sessions];
+      roomOf[c] = new BoolVar[sessions][rooms.length];
+      IntVar previousDay = null;
+      for (int k = 0; k < sessions; k++) {
+        start[c][k] = model.newIntVarFromDomain(Domain.fromValues(starts),
+          variableNames ? String.format("start_c%d_k%d", c, k) : "");
+        for (int j = 0; j < teachers.length; j++) {
+          teacherIntervals.get(teachers[j]).add(model.newOptionalFixedSizeIntervalVar(start[c][k], len,
+            teacherOf[c][j], variableNames ? String.format("iv_c%d_k%d_p%d", c, k, teachers[j]) : ""));
+        }
+        for (int j = 0; j < rooms.length; j++) {
+          roomOf[c][k][j] = model.newBoolVar(variableNames ? String.format("r_c%d_k%d_r%d", c, k, rooms[j]) : "");
+          roomIntervals.get(rooms[j]).add(model.newOptionalFixedSizeIntervalVar(start[c][k], len,
+            roomOf[c][k][j], variableNames ? String.format("iv_c%d_k%d_r%d", c, k, rooms[j]) : ""));
+        }
+        model.addExactlyOne(roomOf[c][k]);
+
+        // Meetings of one course on different days, in day order
+        if (sessions > 1) {
+          IntVar day = model.newIntVar(0, D - 1, variableNames ? String.format("day_c%d_k%d", c, k) : "");
+          model.addLinearConstraint(LinearExpr.newBuilder().add(start[c][k]).addTerm(day, -stride), 0, stride - 2);
+          if (previousDay != null) model.addLessOrEqual(LinearExpr.newBuilder().add(previousDay).add(1), day);
+          previousDay = day;
+        }
+      }
+    }
+
+    // Teacher cannot teach more than one class at same time; availability as fixed intervals
+    metrics.phase("teacher-overlap");
+    BoolVar[][] idle = new BoolVar[P][];
+    for (int p = 0; p < P; p++) {
+      List<IntervalVar> intervals = teacherIntervals.get(p);
+      if (intervals.isEmpty()) continue;
+      addUnavailable(model, intervals, inst.teacherAvail[p], stride, "off_p" + p);
+      idle[p] = new BoolVar[S];
+      for (int s = 0; s < S; s++) {
+        if (!inst.teacherAvail[p].get(s)) continue;
+        idle[p][s] = model.newBoolVar(variableNames ? String.format("idle_p%d_s%d", p, s) : "");
+        intervals.add(model.newOptionalFixedSizeIntervalVar(LinearExpr.constant(position[s]), 1,
+          idle[p][s], variableNames ? String.format("iv_idle_p%d_s%d", p, s) : ""));
+      }
+      model.addNoOverlap(intervals);
+    }
+
+    // One class per room at a time
+    metrics.phase("room-overlap");
+    for (int r = 0; r < R; r++) {
+      List<IntervalVar> intervals = roomIntervals.get(r);
+      if (intervals.isEmpty()) continue;
+      addUnavailable(model, intervals, inst.roomAvail[r], stride, "off_r" + r);
+      if (intervals.size() > 1) model.addNoOverlap(intervals);
+    }
+
+    // Max classes per day and prep periods: of the available slots of a day, all but allowedPerDay idle
+    metrics.phase("daily-limit");
+    for (int p = 0; p < P; p++) {
+      if (idle[p] == null) continue;
+      for (int d = 0; d < D; d++) {
+        int[] day = inst.daySlots[d];
+        List<BoolVar> terms = idleTerms(idle[p], day, 0, day.length);
+        int needed = terms.size() - inst.allowedPerDay(p, d);
+        if (needed <= 0) continue;
+        model.addGreaterOrEqual(LinearExpr.sum(terms.toArray(new BoolVar[0])), needed);
+      }
+    }
+
+    // Max consecutive teaching: an idle slot in every window of maxConsecutiveTeaching + 1
+    metrics.phase("consecutive");
+    int windowSize = inst.maxConsecutiveTeaching + 1;
+    for (int p = 0; p < P; p++) {
+      if (idle[p] == null) continue;
+      for (int[] day : inst.daySlots) {
+        for (int i = 0; i + windowSize <= day.length; i++) {
+          List<BoolVar> terms = idleTerms(idle[p], day, i, i + windowSize);
+          // an unavailable slot in the window already breaks the run
+          if (terms.size() < windowSize) continue;
+          model.addBoolOr(terms.toArray(new Literal[0]));
+        }
+      }
+    }
+
+    metrics.stop();
+    lastBuildStats = new BuildStats("INTERVAL", model.getBuilder().getVariablesCount(),
+      model.getBuilder().getConstraintsCount(), (System.nanoTime() - buildStart) / 1_000_000L);
+
+    // Solve (feasible)
+    CpSolver solver = new CpSolver();
+    options.applyTo(solver);
+
+    metrics.phase("solve");
+    CpSolverStatus status = solver.solve(model);
+    metrics.stop();
+    lastSolveStats = SolveStats.of(solver, status, options);
+
+    Optional<SolutionResult> result = Optional.empty();
+    if (status == CpSolverStatus.OPTIMAL || status == CpSolverStatus.FEASIBLE) {
+      metrics.phase("extract");
+      SolutionResult res = new SolutionResult();
+      res.stats = lastSolveStats;
+      for (int c = 0; c < C; c++) {
+        String teacher = inst.teachers[inst.courseTeachers[c][chosen(solver, teacherOf[c])]];
+        for (int k = 0; k < start[c].length; k++) {
+          String room = inst.rooms[inst.courseRooms[c][chosen(solver, roomOf[c][k])]];
+          int t = (int) solver.value(start[c][k]);
+          int[] day = inst.daySlots[t / stride];
+          for (int i = 0; i < inst.sessionLength[c]; i++) {
+            res.assignments.add(new Assignment(inst.courses[c], inst.timeSlots[day[t % stride + i]], room, teacher));
+          }
+        }
+      }
+      result = Optional.of(res);
+    }
+    lastMetrics = metrics.finish("INTERVAL", solver, status);
+    if (options.getMetricsListener() != null) options.getMetricsListener().onMetrics(lastMetrics);
+    return result;
+  }
+
+  // Starts of runs of len slots inside one day during which some eligible teacher and some room of
+  // the course's type are available throughout
+  private long[] validStarts(int c, int len, int stride) {
+    List<Long> out = new ArrayList<>();
+    for (int d = 0; d < inst.numDays(); d++) {
+      int[] day = inst.daySlots[d];
+      for (int i = 0; i + len <= day.length; i++) {
+        if (anyAvailable(inst.courseTeachers[c], inst.teacherAvail, day, i, len)
+            && anyAvailable(inst.courseRooms[c], inst.roomAvail, day, i, len)) {
+          out.add((long) d * stride + i);
+        }
+      }
+    }
+    long[] starts = new long[out.size()];
+    for (int i = 0; i < starts.length; i++) starts[i] = out.get(i);
+    return starts;
+  }
+
+  private static boolean anyAvailable(int[] ids, BitSet[] avail, int[] day, int from, int len) {
+    for (int id : ids) {
+      boolean all = true;
+      for (int i = from; i < from + len && all; i++) all = avail[id].get(day[i]);
+      if (all) return true;
+    }
+    return false;
+  }
+
+  // One fixed interval per run of unavailable slots within a day
+  private void addUnavailable(CpModel model, List<IntervalVar> intervals, BitSet avail, int stride, String name) {
+    for (int d = 0; d < inst.numDays(); d++) {
+      int[] day = inst.daySlots[d];
+      int i = 0;
+      while (i < day.length) {
+        if (avail.get(day[i])) {
+          i++;
+          continue;
+        }
+        int from = i;
+        while (i < day.length && !avail.get(day[i])) i++;
+        intervals.add(model.newFixedInterval((long) d * stride + from, i - from,
+          variableNames ? name + "_d" + d + "_" + from : ""));
+      }
+    }
+  }
+
+  private static List<BoolVar> idleTerms(BoolVar[] idle, int[] slots, int from, int to) {
+    List<BoolVar> terms = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      if (idle[slots[i]] != null) terms.add(idle[slots[i]]);
+    }
+    return terms;
+  }
+
+  private static List<List<IntervalVar>> lists(int n) {
+    List<List<IntervalVar>> out = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) out.add(new ArrayList<>());
+    return out;
+  }
+
+  private static int chosen(CpSolver solver, BoolVar[] vars) {
+    for (int i = 0; i < vars.length; i++) {
+      if (solver.booleanValue(vars[i])) return i;
+    }
+    throw new IllegalStateException("exactly-one family has no true literal");
+  }
+}
@@ -0,0 +1,511 @@
+package com.scheduler;
+
+import com.google.ortools.sat.CpSolver;
+import com.google.ortools.sat.CpSolverResponse;
+import com.google.ortools.sat.CpSolverStatus;
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.BuildStats;
+import com.scheduler.SchedulerModel.Built;
+import com.scheduler.SchedulerModel.Construction;
+import com.scheduler.SchedulerModel.Layout;
+import com.scheduler.SchedulerModel.SolutionResult;
+import com.scheduler.SchedulerModel.SolveStats;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// Large neighbourhood search around SchedulerModel, for instances whose full model does not solve in
+// time. Starting from a complete schedule it repeatedly frees one neighbourhood - the classes of one
+// day, of a cluster of teachers who share courses, of one building or of one room type - and
+// re-optimises only those classes while everything else stays where it is.
+//
+// A neighbourhood's model is a SchedulerModel over CompiledInstance.subset(): slots taken by fixed
+// classes are removed from room and teacher availability, and a teacher's fixed classes count towards
+// the daily and consecutive limits as background. Neighbourhoods that touch disjoint (teacher, day)
+// and (room, day) pairs cannot interact, so every round solves up to `parallelism` of them at once. A
+// result is kept when the full objective, evaluated in Java by ObjectiveWeights.evaluate, does not get
+// worse: the sub-model's own objective only sees the freed classes. Every attempt goes to the trace.
+public class LnsScheduler implements ScheduleSolver {
+  public enum Kind { DAY, TEACHER_CLUSTER, BUILDING, ROOM_TYPE }
+
+  // One neighbourhood attempt
+  public static class Step {
+    public final int round;
+    public final double wallSeconds;
+    public final Kind kind;
+    public final String label;
+    public final int freedCourses;
+    public final CpSolverStatus status;
+    // full objective with the neighbourhood's result applied, -1 when it found none
+    public final long objective;
+    public final boolean accepted;
+    // objective of the kept schedule after this step
+    public final long best;
+
+    public Step(int round, double wallSeconds, Kind kind, String label, int freedCourses, CpSolverStatus status,
+                long objective, boolean accepted, long best) {
+      this.round = round;
+      this.wallSeconds = wallSeconds;
+      this.kind = kind;
+      this.label = label;
+      this.freedCourses = freedCourses;
+      this.status = status;
+      this.objective = objective;
+      this.accepted = accepted;
+      this.best = best;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%4d %8.2fs  %-28s %5d freed  %-10s %8d %s best %d", round, wallSeconds,
+        label, freedCourses, status, objective, accepted ? "kept   " : "dropped", best);
+    }
+  }
+
+  private final CompiledInstance inst;
+  private final ObjectiveWeights weights;
+  private final SolverOptions options;
+  private int parallelism = Math.min(4, Runtime.getRuntime().availableProcessors());
+  private double neighborhoodSeconds = 2.0;
+  private int maxFreedCourses = 200;
+  private int clusterSize = 6;
+  private long seed = 1;
+  private SolutionResult initial;
+  private final List<Step> trace = Collections.synchronizedList(new ArrayList<>());
+  private volatile BuildStats lastBuildStats;
+  private volatile SolveStats lastSolveStats;
+
+  // options.getTimeLimit() is the budget of solve(), initial schedule included
+  public LnsScheduler(CompiledInstance inst, ObjectiveWeights weights, SolverOptions options) {
+    this.inst = inst;
+    this.weights = weights;
+    this.options = options;
+  }
+
+  // Neighbourhoods solved at the same time, when disjoint ones can be found
+  public LnsScheduler parallelism(int n) {
+    if (n < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+    this.parallelism = n;
+    return this;
+  }
+
+  public LnsScheduler neighborhoodTimeLimit(double seconds) {
+    if (seconds <= 0) throw new IllegalArgumentException("time limit must be positive");
+    this.neighborhoodSeconds = seconds;
+    return this;
+  }
+
+  // Larger neighbourhoods are cut down to a random sample of this many classes
+  public LnsScheduler maxFreedCourses(int n) {
+    if (n < 1) throw new IllegalArgumentException("maxFreedCourses must be >= 1");
+    this.maxFreedCourses = n;
+    return this;
+  }
+
+  public LnsScheduler clusterSize(int n) {
+    if (n < 1) throw new IllegalArgumentException("clusterSize must be >= 1");
+    this.clusterSize = n;
+    return this;
+  }
+
+  public LnsScheduler seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  // Starting schedule for solve(); without one, solve() starts from GreedyScheduler and, when that
+  // leaves courses unplaced, from SchedulerModel run for a quarter of the budget
+  public LnsScheduler initial(SolutionResult schedule) {
+    this.initial = schedule;
+    return this;
+  }
+
+  // Attempts of the last run, in order
+  public List<Step> getTrace() {
+    synchronized (trace) {
+      return new ArrayList<>(trace);
+    }
+  }
+
+  @Override
+  public BuildStats getBuildStats() {
+    return lastBuildStats;
+  }
+
+  @Override
+  public SolveStats getSolveStats() {
+    return lastSolveStats;
+  }
+
+  @Override
+  public Optional<SolutionResult> solve() {
+    inst.requireSingleSessions("LnsScheduler");
+    long start = System.nanoTime();
+    double budget = options.getTimeLimit();
+    SolutionResult first = initial;
+    if (first == null) {
+      GreedyScheduler greedy = new GreedyScheduler(inst);
+      first = greedy.solve().orElse(null);
+      lastBuildStats = greedy.getBuildStats();
+      lastSolveStats = greedy.getSolveStats();
+    }
+    if (first == null) {
+      SchedulerModel model = new SchedulerModel(inst, Layout.SPARSE, options.copy().timeLimit(budget / 4))
+        .construction(Construction.DIRECT).variableNames(false);
+      Optional<SolutionResult> res = model.solve();
+      lastBuildStats = model.getBuildStats();
+      lastSolveStats = model.getSolveStats();
+      if (res.isEmpty()) return res;
+      first = res.get();
+    }
+    double left = budget - (System.nanoTime() - start) / 1e9;
+    return left > 0 ? Optional.of(improve(first, left)) : Optional.of(first);
+  }
+
+  // Runs the search from a complete schedule for the given wall time and returns the best schedule
+  public SolutionResult improve(SolutionResult schedule, double budgetSeconds) {
+    inst.requireSingleSessions("LnsScheduler");
+    long start = System.nanoTime();
+    trace.clear();
+    State current = new State(inst, schedule);
+    long best = weights.evaluate(inst, current.slot, current.room, current.teacher);
+    Random rng = new Random(seed);
+    SolverOptions subOptions = options.copy().metricsTo(null);
+    if (options.getWorkers() > 0) subOptions.workers(Math.max(1, options.getWorkers() / parallelism));
+    else subOptions.workers(Math.max(1, Runtime.getRuntime().availableProcessors() / parallelism));
+
+    ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+    long conflicts = 0, branches = 0;
+    int round = 0, kept = 0;
+    try {
+      while (true) {
+        double left = budgetSeconds - (System.nanoTime() - start) / 1e9;
+        if (left < 0.05) break;
+        List<Neighborhood> picked = pick(current, rng);
+        // every attempt came up empty: the schedule has nothing left to free
+        if (picked.isEmpty()) break;
+        round++;
+        SolverOptions roundOptions = subOptions.copy().timeLimit(Math.min(neighborhoodSeconds, left));
+        // workers read one snapshot per round; current changes below while they run
+        State snapshot = current.copy();
+        List<Future<Move>> moves = new ArrayList<>();
+        for (Neighborhood nb : picked) moves.add(pool.submit(() -> solve(nb, snapshot, roundOptions)));
+
+        // disjoint neighbourhoods stay feasible together, so each is judged on top of the ones kept
+        for (int i = 0; i < picked.size(); i++) {
+          Neighborhood nb = picked.get(i);
+          Move move = join(moves.get(i));
+          conflicts += move.conflicts;
+          branches += move.branches;
+          long objective = -1;
+          boolean accepted = false;
+          if (move.slot != null) {
+            State trial = current.copy();
+            for (int j = 0; j < nb.courses.length; j++) {
+              trial.slot[nb.courses[j]] = move.slot[j];
+              trial.room[nb.courses[j]] = move.room[j];
+              trial.teacher[nb.courses[j]] = move.teacher[j];
+            }
+            objective = weights.evaluate(inst, trial.slot, trial.room, trial.teacher);
+            if (objective <= best) {
+              current.assign(trial);
+              best = objective;
+              accepted = true;
+              kept++;
+            }
+          }
+          trace.add(new Step(round, (System.nanoTime() - start) / 1e9, nb.kind, nb.label, nb.courses.length,
+            move.status, objective, accepted, best));
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    SolutionResult res = current.toResult(inst);
+    lastSolveStats = new SolveStats(CpSolverStatus.FEASIBLE, subOptions.getWorkers(),
+      (System.nanoTime() - start) / 1e9, conflicts, branches, best, 0,
+      "LNS: " + round + " rounds, " + kept + " of " + trace.size() + " neighbourhoods kept");
+    res.stats = lastSolveStats;
+    return res;
+  }
+
+  // Re-optimises one neighbourhood of the snapshot; ids in the result are those of the full instance
+  private Move solve(Neighborhood nb, State current, SolverOptions subOptions) {
+    int S = inst.numSlots;
+    BitSet freed = new BitSet(inst.numCourses);
+    for (int c : nb.courses) freed.set(c);
+
+    // Fixed classes: their slots leave availability and, for teachers, count as background load
+    BitSet[] teacherAvail = new BitSet[nb.teachers.length];
+    BitSet[] background = new BitSet[nb.teachers.length];
+    for (int i = 0; i < nb.teachers.length; i++) {
+      background[i] = new BitSet(S);
+      teacherAvail[i] = (BitSet) inst.teacherAvail[nb.teachers[i]].clone();
+      teacherAvail[i].and(nb.slots);
+    }
+    BitSet[] roomAvail = new BitSet[nb.rooms.length];
+    for (int j = 0; j < nb.rooms.length; j++) {
+      roomAvail[j] = (BitSet) inst.roomAvail[nb.rooms[j]].clone();
+      roomAvail[j].and(nb.slots);
+    }
+    for (int c = 0; c < inst.numCourses; c++) {
+      if (freed.get(c) || current.slot[c] < 0) continue;
+      int i = Arrays.binarySearch(nb.teachers, current.teacher[c]);
+      if (i >= 0) {
+        background[i].set(current.slot[c]);
+        teacherAvail[i].clear(current.slot[c]);
+      }
+      int j = Arrays.binarySearch(nb.rooms, current.room[c]);
+      if (j >= 0) roomAvail[j].clear(current.slot[c]);
+    }
+    CompiledInstance sub = inst.subset(nb.teachers, nb.courses, nb.rooms).withAvailability(teacherAvail, roomAvail);
+
+    SchedulerModel model = new SchedulerModel(sub, Layout.SPARSE, subOptions)
+      .construction(Construction.DIRECT).variableNames(false).optimize(weights).background(background);
+    Built b = model.build(sub);
+    // the current placement is a solution of the neighbourhood; start from it
+    Set<Long> hint = new HashSet<>();
+    for (int k = 0; k < nb.courses.length; k++) {
+      int c = nb.courses[k];
+      hint.add(SchedulerModel.tupleKey(sub, k, current.slot[c], Arrays.binarySearch(nb.rooms, current.room[c]),
+        Arrays.binarySearch(nb.teachers, current.teacher[c])));
+    }
+    SchedulerModel.hint(b, hint);
+    CpSolver solver = model.solveBuilt(b);
+    SolveStats stats = model.getSolveStats();
+
+    Move move = new Move(stats.status, stats.conflicts, stats.branches);
+    if (stats.status == CpSolverStatus.OPTIMAL || stats.status == CpSolverStatus.FEASIBLE) {
+      CpSolverResponse response = solver.response();
+      move.slot = new int[nb.courses.length];
+      move.room = new int[nb.courses.length];
+      move.teacher = new int[nb.courses.length];
+      for (int i = 0; i < b.size; i++) {
+        if (response.getSolution(b.vars[i]) == 0) continue;
+        int k = b.course(i);
+        move.slot[k] = b.slot(i);
+        move.room[k] = nb.rooms[b.room(i)];
+        move.teacher[k] = nb.teachers[b.teacher(i)];
+      }
+    }
+    return move;
+  }
+
+  // Random neighbourhoods for one round, pairwise disjoint in (teacher, day) and (room, day)
+  private List<Neighborhood> pick(State current, Random rng) {
+    List<Kind> kinds = new ArrayList<>(List.of(Kind.DAY, Kind.TEACHER_CLUSTER));
+    if (inst.buildingNames.length > 1) kinds.add(Kind.BUILDING);
+    if (inst.roomTypeNames.length > 1) kinds.add(Kind.ROOM_TYPE);
+
+    List<Neighborhood> out = new ArrayList<>();
+    BitSet taken = new BitSet();
+    for (int attempt = 0; attempt < 4 * parallelism && out.size() < parallelism; attempt++) {
+      Neighborhood nb = neighborhood(kinds.get(rng.nextInt(kinds.size())), current, rng);
+      if (nb == null) continue;
+      BitSet footprint = footprint(nb);
+      if (footprint.intersects(taken)) continue;
+      taken.or(footprint);
+      out.add(nb);
+    }
+    return out;
+  }
+
+  private Neighborhood neighborhood(Kind kind, State current, Random rng) {
+    int C = inst.numCourses;
+    List<Integer> courses = new ArrayList<>();
+    BitSet teachers = new BitSet(inst.numTeachers);
+    BitSet rooms = new BitSet(inst.numRooms);
+    BitSet slots = new BitSet(inst.numSlots);
+    String label;
+    switch (kind) {
+      case DAY: {
+        // any eligible teacher and any room of the type, within the day
+        int d = rng.nextInt(inst.numDays());
+        label = "day " + inst.dayNames[d];
+        for (int s : inst.daySlots[d]) slots.set(s);
+        for (int c = 0; c < C; c++) if (current.slot[c] >= 0 && slots.get(current.slot[c])) courses.add(c);
+        sample(courses, rng);
+        for (int c : courses) {
+          for (int p : inst.courseTeachers[c]) teachers.set(p);
+          for (int r : inst.courseRooms[c]) rooms.set(r);
+        }
+        break;
+      }
+      case TEACHER_CLUSTER: {
+        // teachers reachable through shared courses; their classes move between them, in the rooms
+        // those classes use now
+        int seed = rng.nextInt(inst.numTeachers);
+        label = "teachers around " + inst.teachers[seed];
+        Deque<Integer> queue = new ArrayDeque<>(List.of(seed));
+        teachers.set(seed);
+        while (!queue.isEmpty() && teachers.cardinality() < clusterSize) {
+          BitSet can = inst.eligible[queue.poll()];
+          for (int c = can.nextSetBit(0); c >= 0 && teachers.cardinality() < clusterSize; c = can.nextSetBit(c + 1)) {
+            for (int p : inst.courseTeachers[c]) {
+              if (teachers.cardinality() >= clusterSize) break;
+              if (!teachers.get(p)) {
+                teachers.set(p);
+                queue.add(p);
+              }
+            }
+          }
+        }
+        slots.set(0, inst.numSlots);
+        for (int c = 0; c < C; c++) if (current.slot[c] >= 0 && teachers.get(current.teacher[c])) courses.add(c);
+        sample(courses, rng);
+        for (int c : courses) rooms.set(current.room[c]);
+        break;
+      }
+      case BUILDING: {
+        // the building's classes move between its rooms; each keeps its teacher pool of current teachers
+        int b = rng.nextInt(inst.buildingNames.length);
+        label = "building " + inst.buildingNames[b];
+        for (int r = 0; r < inst.numRooms; r++) if (inst.roomBuilding[r] == b) rooms.set(r);
+        slots.set(0, inst.numSlots);
+        for (int c = 0; c < C; c++) if (current.slot[c] >= 0 && rooms.get(current.room[c])) courses.add(c);
+        sample(courses, rng);
+        for (int c : courses) teachers.set(current.teacher[c]);
+        break;
+      }
+      default: {
+        int t = rng.nextInt(inst.roomTypeNames.length);
+        label = "room type " + inst.roomTypeNames[t];
+        for (int r = 0; r < inst.numRooms; r++) if (inst.roomType[r] == t) rooms.set(r);
+        slots.set(0, inst.numSlots);
+        for (int c = 0; c < C; c++) if (current.slot[c] >= 0 && inst.courseRoomType[c] == t) courses.add(c);
+        sample(courses, rng);
+        for (int c : courses) teachers.set(current.teacher[c]);
+        break;
+      }
+    }
+    if (courses.isEmpty()) return null;
+    int[] ids = courses.stream().mapToInt(Integer::intValue).sorted().toArray();
+    return new Neighborhood(kind, label, ids, teachers.stream().toArray(), rooms.stream().toArray(), slots);
+  }
+
+  private void sample(List<Integer> courses, Random rng) {
+    if (courses.size() <= maxFreedCourses) return;
+    Collections.shuffle(courses, rng);
+    courses.subList(maxFreedCourses, courses.size()).clear();
+  }
+
+  // (teacher, day) and (room, day) pairs whose constraints the neighbourhood may change
+  private BitSet footprint(Neighborhood nb) {
+    int D = inst.numDays();
+    BitSet days = new BitSet(D);
+    for (int s = nb.slots.nextSetBit(0); s >= 0; s = nb.slots.nextSetBit(s + 1)) days.set(inst.slotDay[s]);
+    BitSet out = new BitSet();
+    for (int d = days.nextSetBit(0); d >= 0; d = days.nextSetBit(d + 1)) {
+      for (int p : nb.teachers) out.set(p * D + d);
+      for (int r : nb.rooms) out.set((inst.numTeachers + r) * D + d);
+    }
+    return out;
+  }
+
+  private static Move join(Future<Move> f) {
+    try {
+      return f.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("neighbourhood solve failed", e.getCause());
+    }
+  }
+
+  private static final class Neighborhood {
+    final Kind kind;
+    final String label;
+    // freed courses; teachers and rooms they may use; slots they may move to (ascending ids)
+    final int[] courses;
+    final int[] teachers;
+    final int[] rooms;
+    final BitSet slots;
+
+    Neighborhood(Kind kind, String label, int[] courses, int[] teachers, int[] rooms, BitSet slots) {
+      this.kind = kind;
+      this.label = label;
+      this.courses = courses;
+      this.teachers = teachers;
+      this.rooms = rooms;
+      this.slots = slots;
+    }
+  }
+
+  // New placement of a neighbourhood's courses, parallel to Neighborhood.courses; null when none found
+  private static final class Move {
+    final CpSolverStatus status;
+    final long conflicts;
+    final long branches;
+    int[] slot;
+    int[] room;
+    int[] teacher;
+
+    Move(CpSolverStatus status, long conflicts, long branches) {
+      this.status = status;
+      this.conflicts = conflicts;
+      this.branches = branches;
+    }
+  }
+
+  // Placement per course in ids of the full instance, -1 when unplaced
+  private static final class State {
+    final int[] slot;
+    final int[] room;
+    final int[] teacher;
+
+    private State(int[] slot, int[] room, int[] teacher) {
+      this.slot = slot;
+      this.room = room;
+      this.teacher = teacher;
+    }
+
+    State(CompiledInstance inst, SolutionResult res) {
+      this(filled(inst.numCourses), filled(inst.numCourses), filled(inst.numCourses));
+      Map<String, Integer> courses = ids(inst.courses), slots = ids(inst.timeSlots);
+      Map<String, Integer> rooms = ids(inst.rooms), teachers = ids(inst.teachers);
+      for (Assignment a : res.assignments) {
+        Integer c = courses.get(a.course), s = slots.get(a.slot), r = rooms.get(a.room), p = teachers.get(a.teacher);
+        if (c == null || s == null || r == null || p == null) {
+          throw new IllegalArgumentException("schedule does not belong to the instance: " + a.course);
+        }
+        slot[c] = s;
+        room[c] = r;
+        teacher[c] = p;
+      }
+    }
+
+    State copy() {
+      return new State(slot.clone(), room.clone(), teacher.clone());
+    }
+
+    void assign(State other) {
+      System.arraycopy(other.slot, 0, slot, 0, slot.length);
+      System.arraycopy(other.room, 0, room, 0, room.length);
+      System.arraycopy(other.teacher, 0, teacher, 0, teacher.length);
+    }
+
+    SolutionResult toResult(CompiledInstance inst) {
+      SolutionResult res = new SolutionResult();
+      for (int c = 0; c < slot.length; c++) {
+        if (slot[c] < 0) continue;
+        res.assignments.add(new Assignment(inst.courses[c], inst.timeSlots[slot[c]], inst.rooms[room[c]],
+          inst.teachers[teacher[c]]));
+      }
+      return res;
+    }
+
+    private static int[] filled(int n) {
+      int[] a = new int[n];
+      Arrays.fill(a, -1);
+      return a;
+    }
+
+    private static Map<String, Integer> ids(String[] names) {
+      Map<String, Integer> ids = new HashMap<>();
+      for (int i = 0; i < names.length; i++) ids.put(names[i], i);
+      return ids;
+    }
+  }
+}
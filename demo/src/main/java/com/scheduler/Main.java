@@ -1,18 +1,231 @@
 package com.scheduler;
 
+import com.google.ortools.sat.CpSolverStatus;
+import com.scheduler.SchedulerModel.Construction;
+import com.scheduler.SchedulerModel.Layout;
 import com.scheduler.SchedulerModel.SolutionResult;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Main {
-  public static void main(String[] args) {
-    Config cfg = new Config();
-    SchedulerModel model = new SchedulerModel(cfg);
-    Optional<SolutionResult> maybe = model.solve();
+  // formulation settings from the command line
+  private static Layout layout = Layout.DENSE;
+  private static Construction construction = Construction.OBJECTS;
+  private static boolean variableNames = true;
+  private static boolean roomClasses = false;
+  private static boolean channeled = false;
+  private static boolean intervals = false;
+  private static boolean decompose = false;
+  private static boolean lns = false;
+  private static boolean greedy = false;
+  private static boolean warmStart = false;
+  private static ObjectiveWeights weights = null;
+  private static final SolverOptions options = SolverOptions.defaults();
+
+  public static void main(String[] args) throws IOException {
+    boolean scaling = false;
+    boolean stream = false;
+    boolean metrics = false;
+    boolean scenarios = false;
+    Path cacheDir = null;
+    Path instanceFile = null;
+    Path saveFile = null;
+    Path exportFile = null;
+    int servePort = -1;
+    int serveJobs = 2;
+    int serveQueue = 16;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.equals("--sparse")) layout = Layout.SPARSE;
+      else if (arg.equals("--dense")) layout = Layout.DENSE;
+      else if (arg.equals("--direct")) construction = Construction.DIRECT;
+      else if (arg.equals("--no-names")) variableNames = false;
+      else if (arg.equals("--room-classes")) roomClasses = true;
+      else if (arg.equals("--channeled")) channeled = true;
+      else if (arg.equals("--intervals")) intervals = true;
+      else if (arg.equals("--decompose")) decompose = true;
+      else if (arg.equals("--lns")) lns = true;
+      else if (arg.equals("--greedy")) greedy = true;
+      else if (arg.equals("--warm-start")) warmStart = true;
+      else if (arg.equals("--optimize")) weights = ObjectiveWeights.defaults();
+      else if (arg.equals("--portfolio")) options.workers(Runtime.getRuntime().availableProcessors());
+      else if (arg.equals("--workers")) options.workers(Integer.parseInt(args[++i]));
+      else if (arg.equals("--time")) options.timeLimit(Double.parseDouble(args[++i]));
+      else if (arg.equals("--gap")) options.relativeGap(Double.parseDouble(args[++i]));
+      else if (arg.equals("--abs-gap")) options.absoluteGap(Double.parseDouble(args[++i]));
+      else if (arg.equals("--seed")) options.seed(Integer.parseInt(args[++i]));
+      else if (arg.equals("--log")) options.logTo(System.out::println);
+      else if (arg.equals("--scaling")) scaling = true;
+      else if (arg.equals("--stream")) stream = true;
+      else if (arg.equals("--metrics")) metrics = true;
+      else if (arg.equals("--scenarios")) scenarios = true;
+      else if (arg.equals("--cache")) cacheDir = Path.of(args[++i]);
+      else if (arg.equals("--instance")) instanceFile = Path.of(args[++i]);
+      else if (arg.equals("--save")) saveFile = Path.of(args[++i]);
+      else if (arg.equals("--export")) exportFile = Path.of(args[++i]);
+      else if (arg.equals("--serve")) servePort = Integer.parseInt(args[++i]);
+      else if (arg.equals("--jobs")) serveJobs = Integer.parseInt(args[++i]);
+      else if (arg.equals("--queue")) serveQueue = Integer.parseInt(args[++i]);
+    }
+    // the cache keys on a Config, so it only applies to the built-in instance
+    if (cacheDir != null && instanceFile != null) {
+      throw new IllegalArgumentException("--cache cannot be combined with --instance");
+    }
+    // scenarios edit a Config, which an instance file does not have
+    if (scenarios && instanceFile != null) {
+      throw new IllegalArgumentException("--scenarios cannot be combined with --instance");
+    }
+
+    if (metrics) {
+      // print every record and keep the latest on JMX (com.scheduler:type=SchedulerMetrics)
+      SchedulerMetrics jmx = SchedulerMetrics.register();
+      options.metricsTo(m -> {
+        jmx.onMetrics(m);
+        System.out.println(m);
+      });
+    }
+
+    if (servePort >= 0) {
+      SchedulerService service = new SchedulerService(servePort, serveJobs, serveQueue, options);
+      service.start();
+      System.out.printf("Serving on http://localhost:%d/jobs (%d concurrent jobs, queue of %d)%n",
+        service.getPort(), serveJobs, serveQueue);
+      return;
+    }
+
+    Config cfg = instanceFile == null ? new Config() : null;
+    CompiledInstance inst = cfg != null ? CompiledInstance.compile(cfg) : InstanceFile.read(instanceFile);
+    if (scaling) {
+      printScaling(inst);
+      return;
+    }
+    if (scenarios) {
+      printScenarios(cfg);
+      return;
+    }
+
+    List<FeasibilityScreen.Issue> issues = FeasibilityScreen.screen(inst);
+    if (!issues.isEmpty()) {
+      System.out.println("The data cannot be scheduled:");
+      for (FeasibilityScreen.Issue issue : issues) System.out.println("  " + issue);
+      return;
+    }
+
+    Optional<SolutionResult> maybe;
+    // the solver that ran; null only on a cache hit, which always has a schedule
+    ScheduleSolver solver = null;
+    if (stream) {
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      SchedulerModel model = schedulerModel(inst);
+      SolveHandle handle = model.solveAsync(e ->
+        System.out.printf("solution #%d after %.3fs: objective %.1f, bound %.1f%n",
+          e.index, e.wallSeconds, e.objective, e.bestBound), executor);
+      maybe = handle.result().join();
+      executor.shutdown();
+      solver = model;
+    } else if (cacheDir != null) {
+      SolutionCache cache = new SolutionCache(cacheDir, 64L << 20, 1L << 30);
+      ScheduleSolver[] created = new ScheduleSolver[1];
+      maybe = cache.solve(cfg, solverFingerprint(), i -> created[0] = create(i));
+      solver = created[0];
+      System.out.println(cache.getHits() > 0 ? "Solution cache hit" : "Solution cache miss");
+    } else {
+      solver = create(inst);
+      maybe = solver.solve();
+      System.out.println(solver.getBuildStats());
+      System.out.println(solver.getSolveStats());
+      if (solver instanceof LnsScheduler) ((LnsScheduler) solver).getTrace().forEach(System.out::println);
+    }
     if (maybe.isPresent()) {
       PrettyPrinter.print(maybe.get());
-    } else {
+      if (saveFile != null || exportFile != null) save(maybe.get(), saveFile, exportFile);
+    } else if (solver.getSolveStats().status == CpSolverStatus.INFEASIBLE) {
+      // only a proof of infeasibility has conflicts to explain
       System.out.println("No feasible schedule found with the current constraints.");
+      System.out.println(new ConflictDiagnoser(inst, options).diagnose());
+    } else {
+      System.out.println("No schedule found within the limits (" + solver.getSolveStats().status
+        + "); a longer --time may find one.");
+    }
+  }
+
+  // Writes the binary schedule and exports CSV or iCalendar (by extension) from it
+  private static void save(SolutionResult res, Path saveFile, Path exportFile) throws IOException {
+    Path bin = saveFile != null ? saveFile : Files.createTempFile("schedule", ".sched");
+    ScheduleFile.write(res, bin);
+    if (exportFile != null) {
+      ScheduleFile schedule = ScheduleFile.open(bin);
+      if (exportFile.toString().endsWith(".ics")) schedule.exportICal(exportFile, LocalDate.now());
+      else schedule.exportCsv(exportFile);
+      System.out.println("Exported " + schedule.size() + " assignments to " + exportFile);
+    }
+    if (saveFile == null) Files.delete(bin);
+  }
+
+  private static ScheduleSolver create(CompiledInstance inst) {
+    if (greedy) return new GreedyScheduler(inst);
+    if (decompose) {
+      DecomposingScheduler d = new DecomposingScheduler(inst, layout, options).construction(construction)
+        .variableNames(variableNames).roomClasses(roomClasses);
+      return weights == null ? d : d.optimize(weights);
+    }
+    if (lns) return new LnsScheduler(inst, weights != null ? weights : ObjectiveWeights.defaults(), options);
+    if (intervals) return new IntervalSchedulerModel(inst, options).variableNames(variableNames);
+    return channeled ? new ChanneledSchedulerModel(inst, options) : schedulerModel(inst);
+  }
+
+  // What create() builds, for the solution cache key; mirrors its order
+  private static String solverFingerprint() {
+    if (greedy) return "GREEDY";
+    if (decompose) {
+      return "DECOMPOSE " + layout + (roomClasses ? " room-classes" : "")
+        + (weights == null ? " feasibility" : " optimize " + weights);
+    }
+    if (lns) return "LNS optimize " + (weights != null ? weights : ObjectiveWeights.defaults());
+    if (intervals) return "INTERVALS";
+    if (channeled) return "CHANNELED";
+    return "SCHEDULER_MODEL " + layout + (roomClasses ? " room-classes" : "")
+      + (weights == null ? " feasibility" : " optimize " + weights);
+  }
+
+  private static SchedulerModel schedulerModel(CompiledInstance inst) {
+    SchedulerModel model = new SchedulerModel(inst, layout, options).construction(construction)
+      .variableNames(variableNames).roomClasses(roomClasses);
+    if (warmStart) new GreedyScheduler(inst).solve().ifPresent(model::warmStart);
+    return weights == null ? model : model.optimize(weights);
+  }
+
+  // What-if questions on the sample school, ranked against its base schedule
+  private static void printScenarios(Config cfg) {
+    ScenarioRunner runner = new ScenarioRunner(cfg, layout, options, 4);
+    List<ScenarioRunner.Outcome> outcomes = runner.run(List.of(
+      new ScenarioRunner.Scenario("Dr. Brown out Wednesday").teacherOut("Dr. Brown", "Wed"),
+      new ScenarioRunner.Scenario("Lab 201 closed Tuesday").roomClosed("Building A - Lab 201", "Tue"),
+      new ScenarioRunner.Scenario("Both of the above").teacherOut("Dr. Brown", "Wed")
+        .roomClosed("Building A - Lab 201", "Tue"),
+      new ScenarioRunner.Scenario("No Biology 101").removeCourse("Biology 101"),
+      new ScenarioRunner.Scenario("At most 2 classes a day").maxClassesPerDay(2)));
+    for (ScenarioRunner.Outcome o : outcomes) System.out.println(o);
+  }
+
+  // Time-to-solution for 1, 2, 4, ... workers up to the core count
+  private static void printScaling(CompiledInstance inst) {
+    int cores = Runtime.getRuntime().availableProcessors();
+    System.out.println("workers  wall(s)  conflicts  branches  found by");
+    for (int w = 1; ; w = Math.min(w * 2, cores)) {
+      options.workers(w);
+      ScheduleSolver model = create(inst);
+      model.solve();
+      SchedulerModel.SolveStats st = model.getSolveStats();
+      System.out.printf("%7d  %7.3f  %9d  %8d  %s%n", w, st.wallSeconds, st.conflicts, st.branches, st.solutionInfo);
+      if (w == cores) break;
     }
   }
 }
@@ -0,0 +1,7 @@
+package com.scheduler;
+
+// Receives the performance record of every solve, on the thread that ran it
+@FunctionalInterface
+public interface MetricsListener {
+  void onMetrics(SolveMetrics metrics);
+}
@@ -0,0 +1,104 @@
+package com.scheduler;
+
+import com.google.ortools.sat.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+// Collects SolveMetrics for one build + solve. Phases run back to back on one thread: phase() closes
+// the running phase and opens the next. A phase that adds to the model is also reported as a
+// constraint family, measured as the delta of the model proto. Counting a family's terms walks its
+// constraints, so it only happens when someone will read the result.
+final class MetricsRecorder {
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  private final List<SolveMetrics.Phase> phases = new ArrayList<>();
+  private final List<SolveMetrics.Family> families = new ArrayList<>();
+  private final boolean countTerms;
+  private CpModel model;
+  private String current;
+  private long startNanos;
+  private long startAllocated;
+  private int startVariables;
+  private int startConstraints;
+
+  MetricsRecorder(boolean countTerms) {
+    this.countTerms = countTerms;
+  }
+
+  // Model whose growth later phases measure
+  void attach(CpModel model) {
+    this.model = model;
+  }
+
+  void phase(String name) {
+    stop();
+    current = name;
+    startNanos = System.nanoTime();
+    startAllocated = allocated();
+    if (model != null) {
+      startVariables = model.getBuilder().getVariablesCount();
+      startConstraints = model.getBuilder().getConstraintsCount();
+    }
+  }
+
+  void stop() {
+    if (current == null) return;
+    long end = System.nanoTime();
+    long alloc = allocated();
+    phases.add(new SolveMetrics.Phase(current, end - startNanos, alloc < 0 ? -1 : alloc - startAllocated));
+    if (model != null) {
+      CpModelProto.Builder proto = model.getBuilder();
+      int vars = proto.getVariablesCount() - startVariables;
+      int cons = proto.getConstraintsCount();
+      if (vars > 0 || cons > startConstraints) {
+        long terms = countTerms ? 0 : -1;
+        if (countTerms) {
+          for (int i = startConstraints; i < cons; i++) terms += terms(proto.getConstraintsOrBuilder(i));
+        }
+        families.add(new SolveMetrics.Family(current, vars, cons - startConstraints, terms));
+      }
+    }
+    current = null;
+  }
+
+  SolveMetrics finish(String formulation, CpSolver solver, CpSolverStatus status) {
+    stop();
+    CpModelProto.Builder proto = model.getBuilder();
+    CpSolverResponse r = solver.response();
+    return new SolveMetrics(formulation, System.currentTimeMillis(), List.copyOf(phases), List.copyOf(families),
+      proto.getVariablesCount(), proto.getConstraintsCount(), status, r.getNumConflicts(), r.getNumBranches(),
+      r.getNumBooleans(), r.getNumFixedBooleans(), r.getNumBinaryPropagations() + r.getNumIntegerPropagations(),
+      r.getNumRestarts(), r.getDeterministicTime(), r.getWallTime());
+  }
+
+  private static long terms(ConstraintProtoOrBuilder c) {
+    long n = c.getEnforcementLiteralCount();
+    switch (c.getConstraintCase()) {
+      case LINEAR:
+        return n + c.getLinear().getVarsCount();
+      case BOOL_OR:
+        return n + c.getBoolOr().getLiteralsCount();
+      case BOOL_AND:
+        return n + c.getBoolAnd().getLiteralsCount();
+      case EXACTLY_ONE:
+        return n + c.getExactlyOne().getLiteralsCount();
+      case AT_MOST_ONE:
+        return n + c.getAtMostOne().getLiteralsCount();
+      default:
+        return n;
+    }
+  }
+
+  private static long allocated() {
+    if (THREADS instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean t = (com.sun.management.ThreadMXBean) THREADS;
+      if (t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled()) {
+        return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,111 @@
+package com.scheduler;
+
+import com.google.ortools.Loader;
+import com.google.ortools.sat.*;
+import com.scheduler.SchedulerModel.Built;
+import com.scheduler.SchedulerModel.Layout;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+// The structural CP-SAT model of an instance, built once with every teacher and room available.
+// Teachers, courses, rooms, qualifications, room types, prep periods and limits are baked in; a
+// solve with today's availability copies the proto and pins the unavailable candidates and busy
+// flags to 0 through their domains, which costs one pass over the candidates instead of a build.
+//
+// With SPARSE the template holds a candidate for every slot, so unavailable tuples stay in the
+// copy as fixed variables that presolve removes. Use it through SchedulerModel.template().
+public final class ModelTemplate {
+  private final CompiledInstance structure;
+  private final Layout layout;
+  private final CpModelProto proto;
+  private final int size;
+  private final int[] tuples;
+  private final int[] vars;
+  private final int[] busy;
+  private final long buildMillis;
+
+  public ModelTemplate(CompiledInstance inst, Layout layout) {
+    long start = System.nanoTime();
+    Loader.loadNativeLibraries();
+    CompiledInstance open = inst.withAvailability(everySlot(inst.numTeachers, inst.numSlots),
+      everySlot(inst.numRooms, inst.numSlots));
+    SchedulerModel model = new SchedulerModel(open, layout)
+      .construction(SchedulerModel.Construction.DIRECT)
+      .variableNames(false);
+    Built b = model.build(open);
+    this.structure = inst;
+    this.layout = layout;
+    this.proto = b.model.getBuilder().build();
+    this.size = b.size;
+    this.tuples = b.tuples;
+    this.vars = b.vars;
+    this.busy = b.busy;
+    this.buildMillis = (System.nanoTime() - start) / 1_000_000L;
+  }
+
+  public Layout getLayout() {
+    return layout;
+  }
+
+  public int candidates() {
+    return size;
+  }
+
+  public long getBuildMillis() {
+    return buildMillis;
+  }
+
+  // Whether inst differs from the template's instance at most in teacher and room availability
+  public boolean fits(CompiledInstance inst) {
+    return sameStructure(inst, structure);
+  }
+
+  // Whether a template built from one instance fits the other, without building it
+  public static boolean sameStructure(CompiledInstance inst, CompiledInstance structure) {
+    if (inst == structure) return true;
+    return inst.numTeachers == structure.numTeachers
+      && inst.numCourses == structure.numCourses
+      && inst.numSlots == structure.numSlots
+      && inst.numRooms == structure.numRooms
+      && inst.maxConsecutiveTeaching == structure.maxConsecutiveTeaching
+      && inst.maxClassesPerDay == structure.maxClassesPerDay
+      && Arrays.equals(inst.slotDay, structure.slotDay)
+      && Arrays.equals(inst.slotHour, structure.slotHour)
+      && Arrays.equals(inst.roomType, structure.roomType)
+      && Arrays.equals(inst.courseRoomType, structure.courseRoomType)
+      && Arrays.equals(inst.prepPeriods, structure.prepPeriods)
+      && Arrays.equals(inst.eligible, structure.eligible, (a, b) -> Objects.equals(a, b) ? 0 : 1);
+  }
+
+  // Copies the structural model into the empty model and applies inst's availability
+  Built instantiate(CompiledInstance inst, CpModel model, MetricsRecorder metrics) {
+    if (!fits(inst)) throw new IllegalArgumentException("instance does not have the template's structure");
+    CpModelProto.Builder builder = model.getBuilder().mergeFrom(proto);
+
+    metrics.phase("availability");
+    int S = inst.numSlots;
+    for (int i = 0; i < size; i++) {
+      int s = tuples[4 * i + 1];
+      if (inst.roomAvail[tuples[4 * i + 2]].get(s) && inst.teacherAvail[tuples[4 * i + 3]].get(s)) continue;
+      builder.getVariablesBuilder(vars[i]).setDomain(1, 0);
+    }
+    for (int p = 0; p < inst.numTeachers; p++) {
+      BitSet avail = inst.teacherAvail[p];
+      for (int s = avail.nextClearBit(0); s < S; s = avail.nextClearBit(s + 1)) {
+        if (busy[p * S + s] >= 0) builder.getVariablesBuilder(busy[p * S + s]).setDomain(1, 0);
+      }
+    }
+    // the index arrays are shared by every instantiation; Built only reads them
+    return new Built(inst, model, size, tuples, vars, busy, metrics);
+  }
+
+  private static BitSet[] everySlot(int n, int slots) {
+    BitSet all = new BitSet(slots);
+    all.set(0, slots);
+    BitSet[] out = new BitSet[n];
+    Arrays.fill(out, all);
+    return out;
+  }
+}
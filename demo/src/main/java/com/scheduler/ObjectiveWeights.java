@@ -0,0 +1,74 @@
+package com.scheduler;
+
+import java.util.Arrays;
+
+// Weights of the soft constraints minimised in optimization mode. A zero weight drops the term.
+public final class ObjectiveWeights {
+  // per change of building between two consecutive classes of a teacher
+  public final long buildingChange;
+  // per free slot between a teacher's first and last class of a day
+  public final long idleGap;
+  // per class of difference between the most and the least loaded teacher
+  public final long loadImbalance;
+
+  public ObjectiveWeights(long buildingChange, long idleGap, long loadImbalance) {
+    if (buildingChange < 0 || idleGap < 0 || loadImbalance < 0) {
+      throw new IllegalArgumentException("objective weights must be >= 0");
+    }
+    this.buildingChange = buildingChange;
+    this.idleGap = idleGap;
+    this.loadImbalance = loadImbalance;
+  }
+
+  public static ObjectiveWeights defaults() {
+    return new ObjectiveWeights(3, 2, 1);
+  }
+
+  @Override
+  public String toString() {
+    return "buildingChange=" + buildingChange + " idleGap=" + idleGap + " loadImbalance=" + loadImbalance;
+  }
+
+  // Value of the objective SchedulerModel minimises, for a complete schedule given as slot, room and
+  // teacher ids per course (-1 for an unplaced course)
+  public long evaluate(CompiledInstance inst, int[] courseSlot, int[] courseRoom, int[] courseTeacher) {
+    int S = inst.numSlots;
+    int P = inst.numTeachers;
+    // room of the class teacher p teaches at s, -1 when free
+    int[] roomAt = new int[P * S];
+    Arrays.fill(roomAt, -1);
+    int[] load = new int[P];
+    for (int c = 0; c < courseSlot.length; c++) {
+      if (courseSlot[c] < 0) continue;
+      roomAt[courseTeacher[c] * S + courseSlot[c]] = courseRoom[c];
+      load[courseTeacher[c]]++;
+    }
+
+    long total = 0;
+    for (int p = 0; p < P; p++) {
+      for (int[] ds : inst.daySlots) {
+        int first = -1, last = -1, busy = 0;
+        for (int i = 0; i < ds.length; i++) {
+          int r = roomAt[p * S + ds[i]];
+          if (r < 0) continue;
+          if (first < 0) first = i;
+          last = i;
+          busy++;
+          int prev = i > 0 ? roomAt[p * S + ds[i - 1]] : -1;
+          if (prev >= 0 && inst.roomBuilding[prev] != inst.roomBuilding[r]) total += buildingChange;
+        }
+        if (first >= 0) total += idleGap * (last - first + 1 - busy);
+      }
+    }
+
+    // over teachers that can teach anything, as in the model
+    int max = Integer.MIN_VALUE, min = Integer.MAX_VALUE;
+    for (int p = 0; p < P; p++) {
+      if (inst.eligible[p].isEmpty()) continue;
+      max = Math.max(max, load[p]);
+      min = Math.min(min, load[p]);
+    }
+    if (max >= min) total += loadImbalance * (max - min);
+    return total;
+  }
+}
@@ -0,0 +1,131 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.SolutionResult;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+// Rooms of the same type with the same availability are interchangeable to every hard constraint. In
+// room-class mode SchedulerModel solves over one room per class with the class size as its per-slot
+// capacity, so CP-SAT no longer branches over permutations of equal rooms; extract() then gives every
+// class occurrence a concrete member room.
+final class RoomClasses {
+  final CompiledInstance inst;
+  // class of each room of inst
+  final int[] classOf;
+  // rooms of each class, ascending
+  final int[][] members;
+  // the instance the model is built on: room k stands for class k, capacity[k] classes at a time
+  final CompiledInstance collapsed;
+
+  private RoomClasses(CompiledInstance inst, int[] classOf, int[][] members, CompiledInstance collapsed) {
+    this.inst = inst;
+    this.classOf = classOf;
+    this.members = members;
+    this.collapsed = collapsed;
+  }
+
+  static RoomClasses of(CompiledInstance inst) {
+    int R = inst.numRooms;
+    Map<List<Object>, Integer> ids = new LinkedHashMap<>();
+    int[] classOf = new int[R];
+    for (int r = 0; r < R; r++) classOf[r] = ids.computeIfAbsent(List.of(inst.roomType[r], inst.roomAvail[r]), k -> ids.size());
+
+    int K = ids.size();
+    int[] size = new int[K];
+    for (int r = 0; r < R; r++) size[classOf[r]]++;
+    int[][] members = new int[K][];
+    for (int k = 0; k < K; k++) members[k] = new int[size[k]];
+    Arrays.fill(size, 0);
+    for (int r = 0; r < R; r++) members[classOf[r]][size[classOf[r]]++] = r;
+
+    // a class is named after its first room and placed in the building most of its rooms are in; the
+    // building-change objective sees that building, the matching below settles the rest
+    String[] names = new String[K];
+    int[] type = new int[K];
+    int[] building = new int[K];
+    BitSet[] avail = new BitSet[K];
+    int[] count = new int[inst.buildingNames.length];
+    for (int k = 0; k < K; k++) {
+      int first = members[k][0];
+      names[k] = inst.rooms[first];
+      type[k] = inst.roomType[first];
+      avail[k] = inst.roomAvail[first];
+      Arrays.fill(count, 0);
+      for (int r : members[k]) count[inst.roomBuilding[r]]++;
+      for (int b = 0; b < count.length; b++) if (count[b] > count[building[k]]) building[k] = b;
+    }
+    CompiledInstance collapsed = new CompiledInstance(inst.teachers, inst.courses, inst.timeSlots, names,
+      inst.dayNames, inst.slotDay, inst.slotHour, inst.roomTypeNames, type, inst.buildingNames, building,
+      inst.courseRoomType, inst.apCourse, inst.courseSessions, inst.sessionLength, inst.qualified, inst.eligible,
+      inst.teacherAvail, avail, inst.prepPeriods, inst.maxConsecutiveTeaching, inst.maxClassesPerDay);
+    return new RoomClasses(inst, classOf, members, collapsed);
+  }
+
+  // Classes a room class may hold in one slot
+  int[] capacity() {
+    int[] capacity = new int[members.length];
+    for (int k = 0; k < members.length; k++) capacity[k] = members[k].length;
+    return capacity;
+  }
+
+  // Reads the schedule of a model built on collapsed and matches every (slot, class) occurrence to a
+  // member room. Members share availability and the model keeps each class within its capacity, so
+  // per slot any injection of courses into members is a valid matching; the order only serves the
+  // building tie-breaks. Slots are walked day by day in hour order and a class goes, in order of
+  // preference, to the room its teacher was in the slot before, to a free room of that building, or
+  // to the first free room of the class.
+  SolutionResult extract(SchedulerModel.Built b, IntPredicate isTrue) {
+    int S = inst.numSlots;
+    int P = inst.numTeachers;
+    int[] count = new int[S + 1];
+    for (int i = 0; i < b.size; i++) if (isTrue.test(b.vars[i])) count[b.slot(i) + 1]++;
+    for (int s = 0; s < S; s++) count[s + 1] += count[s];
+    int[] bySlot = new int[count[S]];
+    int[] next = Arrays.copyOf(count, S);
+    for (int i = 0; i < b.size; i++) if (isTrue.test(b.vars[i])) bySlot[next[b.slot(i)]++] = i;
+
+    SolutionResult res = new SolutionResult();
+    // room of each teacher in the previous and the current slot of the day, -1 when free
+    int[] before = new int[P];
+    int[] now = new int[P];
+    BitSet used = new BitSet(inst.numRooms);
+    for (int[] day : inst.daySlots) {
+      Arrays.fill(before, -1);
+      for (int s : day) {
+        Arrays.fill(now, -1);
+        used.clear();
+        for (int pass = 0; pass < 3; pass++) {
+          for (int j = count[s]; j < count[s + 1]; j++) {
+            int i = bySlot[j];
+            if (i < 0) continue;
+            int p = b.teacher(i);
+            int r = pick(b.room(i), before[p], pass, used);
+            if (r < 0) continue;
+            used.set(r);
+            now[p] = r;
+            bySlot[j] = -1;
+            res.assignments.add(new Assignment(inst.courses[b.course(i)], inst.timeSlots[s], inst.rooms[r],
+              inst.teachers[p]));
+          }
+        }
+        int[] t = before;
+        before = now;
+        now = t;
+      }
+    }
+    return res;
+  }
+
+  // Member of class k for a teacher last seen in room prev: pass 0 takes prev itself, pass 1 a free
+  // room in prev's building, pass 2 any free room. -1 when the pass does not apply.
+  private int pick(int k, int prev, int pass, BitSet used) {
+    if (pass == 0) return prev >= 0 && classOf[prev] == k && !used.get(prev) ? prev : -1;
+    for (int r : members[k]) {
+      if (used.get(r)) continue;
+      if (pass == 2 || (prev >= 0 && inst.roomBuilding[r] == inst.roomBuilding[prev])) return r;
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,288 @@
+package com.scheduler;
+
+import com.google.ortools.sat.CpSolverStatus;
+import com.scheduler.SchedulerModel.Layout;
+import com.scheduler.SchedulerModel.SolutionResult;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// What-if analysis on one base Config: "Dr. Brown is out Wednesday", "Lab 201 closes Tuesday", one
+// course more or less, other limits. The base is compiled and solved once; every scenario is a delta
+// applied to the compiled instance (withAvailability, subset, withCourses, withLimits), so names are
+// never re-indexed. Scenarios that only change availability keep the base structure and instantiate
+// the shared ModelTemplate instead of building a model; the template itself is only built once some
+// scenario fits it. Each scenario is hinted from the base schedule and solved on a bounded pool; the
+// outcomes come back ranked by feasibility, churn against the base schedule and solve time.
+public class ScenarioRunner {
+  // Changes against the base, chained: new Scenario("Brown out Wed").teacherOut("Dr. Brown", "Wed")
+  public static class Scenario {
+    public final String name;
+    private final Map<String, Set<String>> teacherOff = new LinkedHashMap<>();
+    private final Map<String, Set<String>> roomOff = new LinkedHashMap<>();
+    private final Set<String> removed = new LinkedHashSet<>();
+    private final List<NewCourse> added = new ArrayList<>();
+    private Integer maxConsecutiveTeaching;
+    private Integer maxClassesPerDay;
+
+    public Scenario(String name) {
+      this.name = name;
+    }
+
+    // Slots (or whole days, by day name) the teacher is not available in this scenario
+    public Scenario teacherOut(String teacher, String... slotsOrDays) {
+      teacherOff.computeIfAbsent(teacher, k -> new LinkedHashSet<>()).addAll(List.of(slotsOrDays));
+      return this;
+    }
+
+    public Scenario roomClosed(String room, String... slotsOrDays) {
+      roomOff.computeIfAbsent(room, k -> new LinkedHashSet<>()).addAll(List.of(slotsOrDays));
+      return this;
+    }
+
+    public Scenario removeCourse(String course) {
+      removed.add(course);
+      return this;
+    }
+
+    // A single-session course taught by any of the given teachers in a room of the given type
+    public Scenario addCourse(String course, String roomType, boolean ap, String... teachers) {
+      added.add(new NewCourse(course, roomType, ap, teachers));
+      return this;
+    }
+
+    public Scenario maxConsecutiveTeaching(int n) {
+      this.maxConsecutiveTeaching = n;
+      return this;
+    }
+
+    public Scenario maxClassesPerDay(int n) {
+      this.maxClassesPerDay = n;
+      return this;
+    }
+  }
+
+  private static final class NewCourse {
+    final String name;
+    final String roomType;
+    final boolean ap;
+    final String[] teachers;
+
+    NewCourse(String name, String roomType, boolean ap, String[] teachers) {
+      this.name = name;
+      this.roomType = roomType;
+      this.ap = ap;
+      this.teachers = teachers;
+    }
+  }
+
+  public static class Outcome {
+    public final String scenario;
+    public final CpSolverStatus status;
+    // the scenario's schedule, null when none was found
+    public final SolutionResult result;
+    // course placements that differ from the base schedule, -1 without a schedule
+    public final int churn;
+    // build and solve, wall clock
+    public final double seconds;
+    // whether the model came from the shared template
+    public final boolean templated;
+
+    public Outcome(String scenario, CpSolverStatus status, SolutionResult result, int churn, double seconds,
+                   boolean templated) {
+      this.scenario = scenario;
+      this.status = status;
+      this.result = result;
+      this.churn = churn;
+      this.seconds = seconds;
+      this.templated = templated;
+    }
+
+    public boolean isFeasible() {
+      return result != null;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%-30s %-10s churn %4s  %7.3fs%s", scenario, status, churn < 0 ? "-" : String.valueOf(churn),
+        seconds, templated ? "  (template)" : "");
+    }
+  }
+
+  private final Config cfg;
+  private final CompiledInstance base;
+  private final Layout layout;
+  private final SolverOptions options;
+  private final int parallelism;
+  private ModelTemplate template;
+  private SolutionResult baseline;
+
+  // options apply to every solve; their workers are split between the parallelism concurrent scenarios
+  public ScenarioRunner(Config base, Layout layout, SolverOptions options, int parallelism) {
+    if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+    this.cfg = base;
+    this.base = CompiledInstance.compile(base);
+    this.layout = layout;
+    this.options = options;
+    this.parallelism = parallelism;
+  }
+
+  // Starts from a known base schedule instead of solving the base
+  public ScenarioRunner baseline(SolutionResult schedule) {
+    this.baseline = schedule;
+    return this;
+  }
+
+  // The base schedule every scenario is compared with, solved on first use; null if the base has none
+  public synchronized SolutionResult getBaseline() {
+    if (baseline == null) {
+      SchedulerModel model = new SchedulerModel(base, layout, options).construction(SchedulerModel.Construction.DIRECT)
+        .variableNames(false);
+      new GreedyScheduler(base).solve().ifPresent(model::warmStart);
+      baseline = model.solve().orElse(null);
+    }
+    return baseline;
+  }
+
+  // Solves every scenario, at most parallelism at a time, best first
+  public List<Outcome> run(List<Scenario> scenarios) {
+    SolutionResult before = getBaseline();
+    SolverOptions each = options.copy().workers(Math.max(1,
+      (options.getWorkers() > 0 ? options.getWorkers() : Runtime.getRuntime().availableProcessors()) / parallelism));
+
+    // instances are derived up front, so bad names fail the call before anything is solved
+    List<CompiledInstance> instances = new ArrayList<>();
+    for (Scenario sc : scenarios) instances.add(apply(sc));
+    ModelTemplate shared = null;
+    for (CompiledInstance inst : instances) {
+      if (ModelTemplate.sameStructure(inst, base)) {
+        shared = template();
+        break;
+      }
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, scenarios.size())));
+    try {
+      List<Future<Outcome>> futures = new ArrayList<>();
+      for (int i = 0; i < scenarios.size(); i++) {
+        Scenario sc = scenarios.get(i);
+        CompiledInstance inst = instances.get(i);
+        ModelTemplate fitting = shared != null && shared.fits(inst) ? shared : null;
+        futures.add(pool.submit(() -> solve(sc, inst, fitting, before, each)));
+      }
+      List<Outcome> out = new ArrayList<>();
+      for (Future<Outcome> f : futures) out.add(get(f));
+      out.sort(Comparator.comparing((Outcome o) -> !o.isFeasible())
+        .thenComparingInt(o -> o.churn)
+        .thenComparingDouble(o -> o.seconds));
+      return out;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private synchronized ModelTemplate template() {
+    if (template == null) template = new ModelTemplate(base, layout);
+    return template;
+  }
+
+  // template is null when the scenario changes the structure
+  private Outcome solve(Scenario sc, CompiledInstance inst, ModelTemplate template, SolutionResult before,
+                        SolverOptions each) {
+    long start = System.nanoTime();
+    SchedulerModel model = new SchedulerModel(inst, layout, each).construction(SchedulerModel.Construction.DIRECT)
+      .variableNames(false);
+    if (template != null) model.template(template);
+    if (before != null) model.hint(before);
+    Optional<SolutionResult> res = model.solve();
+    double seconds = (System.nanoTime() - start) / 1e9;
+    int churn = res.isPresent() && before != null ? SchedulerModel.countChanges(before, res.get()) : -1;
+    return new Outcome(sc.name, model.getSolveStats().status, res.orElse(null), churn, seconds, template != null);
+  }
+
+  // The base instance with the scenario's changes
+  CompiledInstance apply(Scenario sc) {
+    CompiledInstance inst = base;
+    if (!sc.teacherOff.isEmpty() || !sc.roomOff.isEmpty()) {
+      BitSet[] teacherAvail = base.teacherAvail.clone();
+      BitSet[] roomAvail = base.roomAvail.clone();
+      for (Map.Entry<String, Set<String>> e : sc.teacherOff.entrySet()) {
+        int p = id(cfg.teacherIndex, e.getKey(), "teacher");
+        teacherAvail[p] = without(teacherAvail[p], e.getValue());
+      }
+      for (Map.Entry<String, Set<String>> e : sc.roomOff.entrySet()) {
+        int r = id(cfg.roomIndex, e.getKey(), "room");
+        roomAvail[r] = without(roomAvail[r], e.getValue());
+      }
+      inst = inst.withAvailability(teacherAvail, roomAvail);
+    }
+    if (sc.maxConsecutiveTeaching != null || sc.maxClassesPerDay != null) {
+      inst = inst.withLimits(sc.maxConsecutiveTeaching != null ? sc.maxConsecutiveTeaching : base.maxConsecutiveTeaching,
+        sc.maxClassesPerDay != null ? sc.maxClassesPerDay : base.maxClassesPerDay);
+    }
+    if (!sc.removed.isEmpty()) {
+      BitSet keep = new BitSet(base.numCourses);
+      keep.set(0, base.numCourses);
+      for (String course : sc.removed) keep.clear(id(cfg.courseIndex, course, "course"));
+      int[] all = new int[base.numTeachers];
+      for (int p = 0; p < all.length; p++) all[p] = p;
+      int[] rooms = new int[base.numRooms];
+      for (int r = 0; r < rooms.length; r++) rooms[r] = r;
+      inst = inst.subset(all, keep.stream().toArray(), rooms);
+    }
+    if (!sc.added.isEmpty()) {
+      int n = sc.added.size();
+      String[] names = new String[n];
+      int[] types = new int[n];
+      boolean[] ap = new boolean[n];
+      int[][] teachers = new int[n][];
+      List<String> typeNames = List.of(base.roomTypeNames);
+      for (int i = 0; i < n; i++) {
+        NewCourse c = sc.added.get(i);
+        if (cfg.courseIndex.containsKey(c.name)) throw new IllegalArgumentException("course already exists: " + c.name);
+        names[i] = c.name;
+        types[i] = typeNames.indexOf(c.roomType);
+        if (types[i] < 0) throw new IllegalArgumentException("unknown room type: " + c.roomType);
+        ap[i] = c.ap;
+        teachers[i] = new int[c.teachers.length];
+        for (int j = 0; j < c.teachers.length; j++) teachers[i][j] = id(cfg.teacherIndex, c.teachers[j], "teacher");
+      }
+      inst = inst.withCourses(names, types, ap, teachers);
+    }
+    return inst;
+  }
+
+  // avail minus the named slots and the slots of the named days
+  private BitSet without(BitSet avail, Set<String> slotsOrDays) {
+    BitSet out = (BitSet) avail.clone();
+    List<String> days = List.of(base.dayNames);
+    for (String name : slotsOrDays) {
+      Integer s = cfg.slotIndex.get(name);
+      if (s != null) {
+        out.clear(s);
+        continue;
+      }
+      int d = days.indexOf(name);
+      if (d < 0) throw new IllegalArgumentException("unknown slot or day: " + name);
+      for (int slot : base.daySlots[d]) out.clear(slot);
+    }
+    return out;
+  }
+
+  private static int id(Map<String, Integer> index, String name, String what) {
+    Integer id = index.get(name);
+    if (id == null) throw new IllegalArgumentException("unknown " + what + ": " + name);
+    return id;
+  }
+
+  private static Outcome get(Future<Outcome> f) {
+    try {
+      return f.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("scenario solve failed", e.getCause());
+    }
+  }
+}
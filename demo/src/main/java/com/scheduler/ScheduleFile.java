@@ -0,0 +1,309 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.SolutionResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+// Binary schedule: a string dictionary followed by one int tuple per assignment.
+//
+//   int magic "SCH1", int stringCount, int assignmentCount
+//   stringCount x (int byteLength, UTF-8 bytes), zero-padded to a multiple of 4
+//   assignmentCount x (int course, int slot, int room, int teacher)    dictionary ids
+//
+// Big-endian throughout. open() maps the file read-only and decodes only the dictionary; the tuples
+// are read in place, so a service can hold many schedules without building Assignment objects. Every
+// count, length and id is checked against the file on open, so a truncated or corrupt file fails
+// there with an IOException rather than later with a buffer or index error.
+public final class ScheduleFile {
+  private static final int MAGIC = 0x53434831; // "SCH1"
+  private static final int EXPORT_BUFFER = 64 << 10;
+
+  private final String[] dictionary;
+  private final IntBuffer tuples;
+  private final int size;
+
+  private ScheduleFile(String[] dictionary, IntBuffer tuples, int size) {
+    this.dictionary = dictionary;
+    this.tuples = tuples;
+    this.size = size;
+  }
+
+  public static void write(SolutionResult res, Path file) throws IOException {
+    Map<String, Integer> ids = new LinkedHashMap<>();
+    int[] tupleIds = new int[res.assignments.size() * 4];
+    int i = 0;
+    for (Assignment a : res.assignments) {
+      tupleIds[i++] = ids.computeIfAbsent(a.course, k -> ids.size());
+      tupleIds[i++] = ids.computeIfAbsent(a.slot, k -> ids.size());
+      tupleIds[i++] = ids.computeIfAbsent(a.room, k -> ids.size());
+      tupleIds[i++] = ids.computeIfAbsent(a.teacher, k -> ids.size());
+    }
+    List<byte[]> strings = new ArrayList<>(ids.size());
+    long dictBytes = 0;
+    for (String s : ids.keySet()) {
+      byte[] b = s.getBytes(StandardCharsets.UTF_8);
+      strings.add(b);
+      dictBytes += 4 + b.length;
+    }
+    long size = 12 + align(dictBytes) + 4L * tupleIds.length;
+
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buf.putInt(MAGIC).putInt(strings.size()).putInt(res.assignments.size());
+      for (byte[] b : strings) buf.putInt(b.length).put(b);
+      while (buf.position() % 4 != 0) buf.put((byte) 0);
+      buf.asIntBuffer().put(tupleIds);
+      buf.force();
+    }
+  }
+
+  public static ScheduleFile open(Path file) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+      if (buf.remaining() < 12 || buf.getInt() != MAGIC) throw new IOException(file + ": not a schedule file");
+      int strings = buf.getInt();
+      int size = buf.getInt();
+      // every string takes at least its 4-byte length, every assignment 16 bytes
+      if (strings < 0 || size < 0 || 4L * strings + 16L * size > buf.remaining()) throw corrupt(file);
+      String[] dictionary = new String[strings];
+      for (int i = 0; i < strings; i++) {
+        if (buf.remaining() < 4) throw corrupt(file);
+        int length = buf.getInt();
+        if (length < 0 || length > buf.remaining()) throw corrupt(file);
+        byte[] b = new byte[length];
+        buf.get(b);
+        dictionary[i] = new String(b, StandardCharsets.UTF_8);
+      }
+      if (align(buf.position()) > buf.limit()) throw corrupt(file);
+      buf.position((int) align(buf.position()));
+      IntBuffer tuples = buf.slice().asIntBuffer();
+      if (tuples.remaining() < 4L * size) throw corrupt(file);
+      for (int i = 0; i < 4 * size; i++) {
+        int id = tuples.get(i);
+        if (id < 0 || id >= strings) throw corrupt(file);
+      }
+      // the mapping stays valid after the channel is closed
+      return new ScheduleFile(dictionary, tuples, size);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public String course(int i) {
+    return dictionary[tuples.get(4 * i)];
+  }
+
+  public String slot(int i) {
+    return dictionary[tuples.get(4 * i + 1)];
+  }
+
+  public String room(int i) {
+    return dictionary[tuples.get(4 * i + 2)];
+  }
+
+  public String teacher(int i) {
+    return dictionary[tuples.get(4 * i + 3)];
+  }
+
+  public SolutionResult toResult() {
+    SolutionResult res = new SolutionResult();
+    for (int i = 0; i < size; i++) res.assignments.add(new Assignment(course(i), slot(i), room(i), teacher(i)));
+    return res;
+  }
+
+  public void exportCsv(Path out) throws IOException {
+    try (FileChannel ch = create(out)) {
+      exportCsv(ch);
+    }
+  }
+
+  // course,slot,room,teacher rows. Every dictionary entry is escaped and encoded once; rows are byte
+  // copies into a direct buffer that is drained into the channel whenever it fills.
+  public void exportCsv(WritableByteChannel out) throws IOException {
+    byte[][] cells = new byte[dictionary.length][];
+    for (int i = 0; i < dictionary.length; i++) cells[i] = utf8(csvEscape(dictionary[i]));
+    ChannelWriter w = new ChannelWriter(out);
+    w.put(utf8("course,slot,room,teacher\r\n"));
+    for (int i = 0; i < size; i++) {
+      for (int f = 0; f < 4; f++) {
+        if (f > 0) w.put((byte) ',');
+        w.put(cells[tuples.get(4 * i + f)]);
+      }
+      w.put((byte) '\r').put((byte) '\n');
+    }
+    w.flush();
+  }
+
+  public void exportICal(Path out, LocalDate weekOf) throws IOException {
+    try (FileChannel ch = create(out)) {
+      exportICal(ch, weekOf);
+    }
+  }
+
+  // One weekly recurring VEVENT per assignment, starting in the week of weekOf. Slot names read
+  // "<day> <startHour>-<endHour>": days named like Mon/Tuesday map to that weekday, any other day
+  // names to consecutive days in order of first appearance. Hours below 7 are afternoon hours, as in
+  // the sample data ("Mon 1-2" follows "Mon 11-12").
+  public void exportICal(WritableByteChannel out, LocalDate weekOf) throws IOException {
+    byte[][] text = new byte[dictionary.length][];
+    for (int i = 0; i < dictionary.length; i++) text[i] = utf8(icalEscape(dictionary[i]));
+    byte[][] times = new byte[dictionary.length][];
+    Map<String, Integer> dayOrder = new HashMap<>();
+    DateTimeFormatter local = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    LocalDate monday = weekOf.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    for (int i = 0; i < size; i++) {
+      int s = tuples.get(4 * i + 1);
+      if (times[s] == null) times[s] = utf8(slotTimes(dictionary[s], monday, dayOrder, local));
+    }
+    byte[] stamp = utf8("DTSTAMP:" + ZonedDateTime.now(ZoneOffset.UTC)
+      .format(DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'")) + "\r\n");
+    byte[] begin = utf8("BEGIN:VEVENT\r\n");
+    byte[] end = utf8("RRULE:FREQ=WEEKLY\r\nEND:VEVENT\r\n");
+    byte[] uidSuffix = utf8("@schedulermaker\r\n");
+    byte[] summary = utf8("SUMMARY:");
+    byte[] location = utf8("LOCATION:");
+    byte[] description = utf8("DESCRIPTION:Teacher: ");
+
+    ChannelWriter w = new ChannelWriter(out);
+    w.put(utf8("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//SchedulerMakerOR//Schedule//EN\r\n"));
+    for (int i = 0; i < size; i++) {
+      w.put(begin);
+      w.put(utf8("UID:" + i)).put(uidSuffix);
+      w.put(stamp);
+      w.put(times[tuples.get(4 * i + 1)]);
+      w.folded(summary, text[tuples.get(4 * i)]);
+      w.folded(location, text[tuples.get(4 * i + 2)]);
+      w.folded(description, text[tuples.get(4 * i + 3)]);
+      w.put(end);
+    }
+    w.put(utf8("END:VCALENDAR\r\n"));
+    w.flush();
+  }
+
+  private static String slotTimes(String slot, LocalDate monday, Map<String, Integer> dayOrder,
+                                  DateTimeFormatter local) {
+    String[] parts = slot.split(" ");
+    String[] hours = parts[1].split("-");
+    int start = clockHour(Integer.parseInt(hours[0]));
+    int end = clockHour(Integer.parseInt(hours[1]));
+    if (end <= start) end += 12;
+    LocalDate date;
+    DayOfWeek dow = dayOfWeek(parts[0]);
+    if (dow != null) {
+      date = monday.with(TemporalAdjusters.nextOrSame(dow));
+    } else {
+      date = monday.plusDays(dayOrder.computeIfAbsent(parts[0], k -> dayOrder.size()));
+    }
+    return "DTSTART:" + date.atTime(start, 0).format(local) + "\r\n"
+      + "DTEND:" + date.atTime(Math.min(end, 23), 0).format(local) + "\r\n";
+  }
+
+  private static int clockHour(int h) {
+    return h < 7 ? h + 12 : h;
+  }
+
+  private static DayOfWeek dayOfWeek(String name) {
+    if (name.length() < 3) return null;
+    String prefix = name.substring(0, 3).toUpperCase(Locale.ROOT);
+    for (DayOfWeek d : DayOfWeek.values()) if (d.name().startsWith(prefix)) return d;
+    return null;
+  }
+
+  private static String csvEscape(String s) {
+    if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) return s;
+    return '"' + s.replace("\"", "\"\"") + '"';
+  }
+
+  private static String icalEscape(String s) {
+    return s.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,").replace("\n", "\\n");
+  }
+
+  private static FileChannel create(Path out) throws IOException {
+    return FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+      StandardOpenOption.WRITE);
+  }
+
+  private static IOException corrupt(Path file) {
+    return new IOException(file + ": corrupt");
+  }
+
+  private static long align(long n) {
+    return (n + 3) & ~3L;
+  }
+
+  private static byte[] utf8(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  // Fixed direct buffer in front of a channel
+  private static final class ChannelWriter {
+    private static final int LINE_OCTETS = 75;
+    private final WritableByteChannel out;
+    private final ByteBuffer buf = ByteBuffer.allocateDirect(EXPORT_BUFFER);
+
+    ChannelWriter(WritableByteChannel out) {
+      this.out = out;
+    }
+
+    ChannelWriter put(byte b) throws IOException {
+      if (!buf.hasRemaining()) drain();
+      buf.put(b);
+      return this;
+    }
+
+    ChannelWriter put(byte[] bytes) throws IOException {
+      int off = 0;
+      while (off < bytes.length) {
+        if (!buf.hasRemaining()) drain();
+        int n = Math.min(buf.remaining(), bytes.length - off);
+        buf.put(bytes, off, n);
+        off += n;
+      }
+      return this;
+    }
+
+    // An iCalendar content line folded at 75 octets (RFC 5545 3.1), never inside a UTF-8 sequence
+    void folded(byte[] head, byte[] value) throws IOException {
+      put(head);
+      int octets = head.length;
+      for (byte b : value) {
+        if (octets >= LINE_OCTETS && (b & 0xC0) != 0x80) {
+          put((byte) '\r').put((byte) '\n').put((byte) ' ');
+          octets = 1;
+        }
+        put(b);
+        octets++;
+      }
+      put((byte) '\r').put((byte) '\n');
+    }
+
+    void flush() throws IOException {
+      drain();
+    }
+
+    private void drain() throws IOException {
+      buf.flip();
+      while (buf.hasRemaining()) out.write(buf);
+      buf.clear();
+    }
+  }
+}
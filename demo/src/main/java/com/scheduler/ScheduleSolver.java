@@ -0,0 +1,18 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.BuildStats;
+import com.scheduler.SchedulerModel.SolutionResult;
+import com.scheduler.SchedulerModel.SolveStats;
+
+import java.util.Optional;
+
+// Common entry point of the CP-SAT formulations, so callers can pick one at runtime.
+public interface ScheduleSolver {
+  Optional<SolutionResult> solve();
+
+  // Size and build time of the model created by the last solve() call, or null before the first one.
+  BuildStats getBuildStats();
+
+  // Solver statistics of the last solve() call, including unsuccessful ones; null before the first one.
+  SolveStats getSolveStats();
+}
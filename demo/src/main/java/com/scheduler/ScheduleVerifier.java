@@ -0,0 +1,178 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.SolutionResult;
+
+import java.util.*;
+
+// Checks a schedule against the hard rules on its own, without CP-SAT: for cached results, hints,
+// heuristic output and tests. One pass over the assignments fills teacher x slot and room x slot
+// occupancy bitsets and per-course counters; a second pass over each teacher's days checks the daily
+// and consecutive limits. Every violation is reported with the index of the assignment it concerns.
+// Name lookups are built once per instance, so one verifier checks any number of schedules.
+public final class ScheduleVerifier {
+  public enum Rule {
+    // an assignment names a course, slot, room or teacher the instance does not have
+    UNKNOWN_NAME,
+    // a course is placed more or less often than its sessions x session length
+    COURSE_COUNT,
+    // the teacher is not qualified, or not AP certified for an AP course
+    NOT_ELIGIBLE,
+    ROOM_TYPE,
+    TEACHER_UNAVAILABLE,
+    ROOM_UNAVAILABLE,
+    TEACHER_CONFLICT,
+    ROOM_CONFLICT,
+    // more classes on a day than maxClassesPerDay and the prep periods allow
+    DAILY_LIMIT,
+    CONSECUTIVE
+  }
+
+  public static class Violation {
+    public final Rule rule;
+    // index into SolutionResult.assignments, -1 for rules about a course, teacher or day as a whole
+    public final int index;
+    // the assignment index already holding the teacher or room, for conflicts; otherwise -1
+    public final int other;
+    public final String detail;
+
+    public Violation(Rule rule, int index, int other, String detail) {
+      this.rule = rule;
+      this.index = index;
+      this.other = other;
+      this.detail = detail;
+    }
+
+    @Override
+    public String toString() {
+      String at = index < 0 ? "" : other < 0 ? " at #" + index : " at #" + index + " (with #" + other + ")";
+      return rule + at + ": " + detail;
+    }
+  }
+
+  private final CompiledInstance inst;
+  private final Map<String, Integer> courseIds;
+  private final Map<String, Integer> slotIds;
+  private final Map<String, Integer> roomIds;
+  private final Map<String, Integer> teacherIds;
+
+  public ScheduleVerifier(CompiledInstance inst) {
+    this.inst = inst;
+    this.courseIds = ids(inst.courses);
+    this.slotIds = ids(inst.timeSlots);
+    this.roomIds = ids(inst.rooms);
+    this.teacherIds = ids(inst.teachers);
+  }
+
+  public boolean isValid(SolutionResult res) {
+    return verify(res).isEmpty();
+  }
+
+  // Every violation of res: per assignment in order (conflicts after the rest), then per course, then
+  // per teacher and day
+  public List<Violation> verify(SolutionResult res) {
+    int S = inst.numSlots;
+    List<Violation> out = new ArrayList<>();
+    BitSet teaching = new BitSet(inst.numTeachers * S);
+    BitSet roomUsed = new BitSet(inst.numRooms * S);
+    int[] placed = new int[inst.numCourses];
+    // occupancy keys hit twice; their first holders are looked up afterwards, only if there are any
+    List<Violation> conflicts = new ArrayList<>();
+    List<Integer> conflictKeys = new ArrayList<>();
+
+    List<Assignment> list = res.assignments;
+    for (int i = 0; i < list.size(); i++) {
+      Assignment a = list.get(i);
+      Integer c = courseIds.get(a.course), s = slotIds.get(a.slot), r = roomIds.get(a.room), p = teacherIds.get(a.teacher);
+      if (c == null || s == null || r == null || p == null) {
+        out.add(new Violation(Rule.UNKNOWN_NAME, i, -1, a.course + " / " + a.slot + " / " + a.room + " / " + a.teacher));
+        continue;
+      }
+      placed[c]++;
+      if (!inst.eligible[p].get(c)) {
+        out.add(new Violation(Rule.NOT_ELIGIBLE, i, -1, a.teacher + " may not teach " + a.course));
+      }
+      if (inst.roomType[r] != inst.courseRoomType[c]) {
+        out.add(new Violation(Rule.ROOM_TYPE, i, -1, a.course + " needs " + inst.roomTypeNames[inst.courseRoomType[c]]
+          + ", " + a.room + " is " + inst.roomTypeNames[inst.roomType[r]]));
+      }
+      if (!inst.teacherAvail[p].get(s)) {
+        out.add(new Violation(Rule.TEACHER_UNAVAILABLE, i, -1, a.teacher + " at " + a.slot));
+      }
+      if (!inst.roomAvail[r].get(s)) {
+        out.add(new Violation(Rule.ROOM_UNAVAILABLE, i, -1, a.room + " at " + a.slot));
+      }
+      int tk = p * S + s, rk = r * S + s;
+      if (teaching.get(tk)) {
+        conflicts.add(new Violation(Rule.TEACHER_CONFLICT, i, -1, a.teacher + " at " + a.slot));
+        conflictKeys.add(tk);
+      }
+      if (roomUsed.get(rk)) {
+        conflicts.add(new Violation(Rule.ROOM_CONFLICT, i, -1, a.room + " at " + a.slot));
+        conflictKeys.add(-1 - rk);
+      }
+      teaching.set(tk);
+      roomUsed.set(rk);
+    }
+    if (!conflicts.isEmpty()) out.addAll(withHolders(list, conflicts, conflictKeys));
+
+    for (int c = 0; c < inst.numCourses; c++) {
+      int expected = inst.courseSessions[c] * inst.sessionLength[c];
+      if (placed[c] != expected) {
+        out.add(new Violation(Rule.COURSE_COUNT, -1, -1, inst.courses[c] + " placed " + placed[c] + " times, expected " + expected));
+      }
+    }
+
+    for (int p = 0; p < inst.numTeachers; p++) {
+      int base = p * S;
+      if (teaching.nextSetBit(base) >= base + S || teaching.nextSetBit(base) < 0) continue;
+      for (int d = 0; d < inst.numDays(); d++) {
+        int total = 0, run = 0, longest = 0;
+        for (int s : inst.daySlots[d]) {
+          if (teaching.get(base + s)) {
+            total++;
+            longest = Math.max(longest, ++run);
+          } else {
+            run = 0;
+          }
+        }
+        if (total > inst.allowedPerDay(p, d)) {
+          out.add(new Violation(Rule.DAILY_LIMIT, -1, -1, inst.teachers[p] + " teaches " + total + " classes on "
+            + inst.dayNames[d] + ", allowed " + inst.allowedPerDay(p, d)));
+        }
+        if (longest > inst.maxConsecutiveTeaching) {
+          out.add(new Violation(Rule.CONSECUTIVE, -1, -1, inst.teachers[p] + " teaches " + longest + " in a row on "
+            + inst.dayNames[d] + ", allowed " + inst.maxConsecutiveTeaching));
+        }
+      }
+    }
+    return out;
+  }
+
+  // Fills in the first assignment holding each conflicting teacher or room slot
+  private List<Violation> withHolders(List<Assignment> list, List<Violation> conflicts, List<Integer> keys) {
+    int S = inst.numSlots;
+    Map<Integer, Integer> holder = new HashMap<>();
+    for (int key : keys) holder.put(key, -1);
+    for (int i = 0; i < list.size(); i++) {
+      Assignment a = list.get(i);
+      Integer s = slotIds.get(a.slot), r = roomIds.get(a.room), p = teacherIds.get(a.teacher);
+      if (s == null || r == null || p == null || courseIds.get(a.course) == null) continue;
+      int at = i;
+      holder.computeIfPresent(p * S + s, (k, v) -> v < 0 ? at : v);
+      holder.computeIfPresent(-1 - (r * S + s), (k, v) -> v < 0 ? at : v);
+    }
+    List<Violation> out = new ArrayList<>();
+    for (int j = 0; j < conflicts.size(); j++) {
+      Violation v = conflicts.get(j);
+      out.add(new Violation(v.rule, v.index, holder.get(keys.get(j)), v.detail));
+    }
+    return out;
+  }
+
+  private static Map<String, Integer> ids(String[] names) {
+    Map<String, Integer> ids = new HashMap<>(names.length * 2);
+    for (int i = 0; i < names.length; i++) ids.put(names[i], i);
+    return ids;
+  }
+}
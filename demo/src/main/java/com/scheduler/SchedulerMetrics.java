@@ -0,0 +1,136 @@
+package com.scheduler;
+
+import com.google.ortools.sat.CpSolverStatus;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Aggregates SolveMetrics for JMX. Pass it (or any other listener) to SolverOptions.metricsTo; register()
+// publishes the process-wide instance on the platform MBean server.
+public class SchedulerMetrics implements SchedulerMetricsMXBean, MetricsListener {
+  public static final String OBJECT_NAME = "com.scheduler:type=SchedulerMetrics";
+  private static SchedulerMetrics registered;
+
+  private long solves;
+  private long feasible;
+  private double totalSolveSeconds;
+  private SolveMetrics last;
+
+  public static synchronized SchedulerMetrics register() {
+    if (registered == null) {
+      SchedulerMetrics metrics = new SchedulerMetrics();
+      try {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(metrics, new ObjectName(OBJECT_NAME));
+      } catch (JMException e) {
+        throw new IllegalStateException("cannot register " + OBJECT_NAME, e);
+      }
+      registered = metrics;
+    }
+    return registered;
+  }
+
+  @Override
+  public synchronized void onMetrics(SolveMetrics m) {
+    solves++;
+    if (m.status == CpSolverStatus.OPTIMAL || m.status == CpSolverStatus.FEASIBLE) feasible++;
+    totalSolveSeconds += m.solveWallSeconds;
+    last = m;
+  }
+
+  public synchronized SolveMetrics getLast() {
+    return last;
+  }
+
+  @Override
+  public synchronized long getSolveCount() {
+    return solves;
+  }
+
+  @Override
+  public synchronized long getFeasibleCount() {
+    return feasible;
+  }
+
+  @Override
+  public synchronized double getTotalSolveSeconds() {
+    return totalSolveSeconds;
+  }
+
+  @Override
+  public synchronized String getLastFormulation() {
+    return last == null ? null : last.formulation;
+  }
+
+  @Override
+  public synchronized String getLastStatus() {
+    return last == null ? null : String.valueOf(last.status);
+  }
+
+  @Override
+  public synchronized long getLastTimestampMillis() {
+    return last == null ? 0 : last.timestampMillis;
+  }
+
+  @Override
+  public synchronized int getLastVariables() {
+    return last == null ? 0 : last.variables;
+  }
+
+  @Override
+  public synchronized int getLastConstraints() {
+    return last == null ? 0 : last.constraints;
+  }
+
+  @Override
+  public synchronized long getLastTerms() {
+    return last == null ? 0 : last.totalTerms();
+  }
+
+  @Override
+  public synchronized long getLastConflicts() {
+    return last == null ? 0 : last.conflicts;
+  }
+
+  @Override
+  public synchronized long getLastBranches() {
+    return last == null ? 0 : last.branches;
+  }
+
+  @Override
+  public synchronized long getLastBooleans() {
+    return last == null ? 0 : last.booleans;
+  }
+
+  @Override
+  public synchronized Map<String, Double> getLastPhaseMillis() {
+    Map<String, Double> out = new LinkedHashMap<>();
+    if (last != null) for (SolveMetrics.Phase p : last.phases) out.put(p.name, p.wallNanos / 1e6);
+    return out;
+  }
+
+  @Override
+  public synchronized Map<String, Long> getLastPhaseAllocatedBytes() {
+    Map<String, Long> out = new LinkedHashMap<>();
+    if (last != null) for (SolveMetrics.Phase p : last.phases) out.put(p.name, p.allocatedBytes);
+    return out;
+  }
+
+  @Override
+  public synchronized Map<String, Integer> getLastFamilyConstraints() {
+    Map<String, Integer> out = new LinkedHashMap<>();
+    if (last != null) for (SolveMetrics.Family f : last.families) out.put(f.name, f.constraints);
+    return out;
+  }
+
+  @Override
+  public synchronized Map<String, Long> getLastFamilyTerms() {
+    Map<String, Long> out = new LinkedHashMap<>();
+    if (last != null) for (SolveMetrics.Family f : last.families) out.put(f.name, f.terms);
+    return out;
+  }
+}
@@ -0,0 +1,40 @@
+package com.scheduler;
+
+import java.util.Map;
+
+// JMX view of SchedulerMetrics, registered as com.scheduler:type=SchedulerMetrics
+public interface SchedulerMetricsMXBean {
+  long getSolveCount();
+
+  long getFeasibleCount();
+
+  double getTotalSolveSeconds();
+
+  String getLastFormulation();
+
+  String getLastStatus();
+
+  long getLastTimestampMillis();
+
+  int getLastVariables();
+
+  int getLastConstraints();
+
+  long getLastTerms();
+
+  long getLastConflicts();
+
+  long getLastBranches();
+
+  long getLastBooleans();
+
+  // phase -> wall milliseconds / allocated bytes of the last solve
+  Map<String, Double> getLastPhaseMillis();
+
+  Map<String, Long> getLastPhaseAllocatedBytes();
+
+  // constraint family -> constraints / terms of the last model
+  Map<String, Integer> getLastFamilyConstraints();
+
+  Map<String, Long> getLastFamilyTerms();
+}
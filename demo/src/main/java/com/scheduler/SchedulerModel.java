@@ -4,181 +4,760 @@ import com.google.ortools.Loader;
 import com.google.ortools.sat.*;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
 
-public class SchedulerModel {
-  private final Config cfg;
+public class SchedulerModel implements ScheduleSolver {
+  // How assignment variables are laid out in the CP-SAT model.
+  public enum Layout {
+    // one BoolVar per (course, slot, room, teacher); infeasible tuples are pinned to 0
+    DENSE,
+    // BoolVars only for tuples that pass the qualification, AP, room type and availability filters
+    SPARSE
+  }
+
+  // How the model is written.
+  public enum Construction {
+    // CpModel's BoolVar / LinearExpr API, one List and array copy per constraint
+    OBJECTS,
+    // literals written from primitive arrays into the model proto (DirectModelBuilder); build time and
+    // garbage stay small next to the solve at millions of candidate tuples
+    DIRECT
+  }
+
+  private final CompiledInstance inst;
+  private final Layout layout;
+  private final SolverOptions options;
+  private Construction construction = Construction.OBJECTS;
+  private boolean variableNames = true;
+  private boolean roomClasses = false;
+  private SolutionResult warmStart;
+  // whether warmStart is a valid schedule of this instance that solve() may fall back to
+  private boolean warmStartValid;
+  private ModelTemplate template;
+  // per teacher, slots already taken by classes outside the model (LnsScheduler)
+  private BitSet[] background;
+  private ObjectiveWeights objective;
+  private volatile BuildStats lastBuildStats;
+  private volatile SolveStats lastSolveStats;
+  private volatile SolveMetrics lastMetrics;
 
   public SchedulerModel(Config cfg) {
-    this.cfg = cfg;
+    this(cfg, Layout.DENSE);
+  }
+
+  public SchedulerModel(Config cfg, Layout layout) {
+    this(CompiledInstance.compile(cfg), layout, SolverOptions.defaults());
+  }
+
+  public SchedulerModel(CompiledInstance inst, Layout layout) {
+    this(inst, layout, SolverOptions.defaults());
+  }
+
+  public SchedulerModel(CompiledInstance inst, Layout layout, SolverOptions options) {
+    this.inst = inst;
+    this.layout = layout;
+    this.options = options;
+  }
+
+  // Switches from feasibility to optimization of the weighted soft constraints. Stop early through
+  // SolverOptions' relative/absolute gap or time limit; SolveStats reports objective and bound.
+  public SchedulerModel optimize(ObjectiveWeights weights) {
+    this.objective = weights;
+    return this;
+  }
+
+  public SchedulerModel construction(Construction construction) {
+    this.construction = construction;
+    return this;
+  }
+
+  // Names such as c3_s7_r1_p4 make exported models and solver logs readable, at one String per
+  // variable. Off, variables are unnamed.
+  public SchedulerModel variableNames(boolean names) {
+    this.variableNames = names;
+    return this;
+  }
+
+  // Solves over classes of interchangeable rooms (same type, same availability) instead of single
+  // rooms and matches concrete rooms per slot afterwards (RoomClasses). The room dimension shrinks to
+  // the number of classes and the symmetric permutations of equal rooms leave the search.
+  public SchedulerModel roomClasses(boolean on) {
+    this.roomClasses = on;
+    return this;
+  }
+
+  // A complete schedule of the instance, e.g. from GreedyScheduler: every variable is hinted from it,
+  // and solve() returns it when the search stops without a solution of its own (time limit)
+  public SchedulerModel warmStart(SolutionResult schedule) {
+    this.warmStart = schedule;
+    this.warmStartValid = true;
+    return this;
+  }
+
+  // Hints from a schedule that need not be valid here, e.g. the one before the data changed;
+  // assignments that no longer fit are left out and solve() never returns it
+  public SchedulerModel hint(SolutionResult schedule) {
+    this.warmStart = schedule;
+    this.warmStartValid = false;
+    return this;
+  }
+
+  // Instantiates models from a prebuilt template instead of building them, for every instance that
+  // has the template's structure (see ModelTemplate.fits); others, and models with background
+  // classes (the template's limits do not count them), are still built in full
+  public SchedulerModel template(ModelTemplate template) {
+    if (template.getLayout() != layout) {
+      throw new IllegalArgumentException("template is " + template.getLayout() + ", model is " + layout);
+    }
+    this.template = template;
+    return this;
+  }
+
+  // Classes outside the model that still count towards each teacher's daily and consecutive limits.
+  // Their slots must also be removed from the instance's teacher availability.
+  SchedulerModel background(BitSet[] teacherBusy) {
+    this.background = teacherBusy;
+    return this;
+  }
+
+  @Override
+  public BuildStats getBuildStats() {
+    return lastBuildStats;
   }
 
+  @Override
+  public SolveStats getSolveStats() {
+    return lastSolveStats;
+  }
+
+  // Phase timings, model size per constraint family and solver statistics of the last solve
+  public SolveMetrics getMetrics() {
+    return lastMetrics;
+  }
+
+  @Override
   public Optional<SolutionResult> solve() {
+    Built b = build(inst);
+    if (warmStart != null) hint(b, keys(inst, b, warmStart));
+    Optional<SolutionResult> res = run(b);
+    return res.isPresent() ? res : fallback();
+  }
+
+  // Builds and solves on the executor, reporting every improving solution to the listener as soon as
+  // CP-SAT finds it. The handle cancels the search and yields the last solution.
+  public SolveHandle solveAsync(SolutionListener listener, Executor executor) {
+    SolveHandle handle = new SolveHandle();
+    executor.execute(() -> {
+      try {
+        if (handle.isCancelled()) {
+          handle.complete(Optional.empty());
+          return;
+        }
+        Built b = build(inst);
+        if (warmStart != null) hint(b, keys(inst, b, warmStart));
+        CpSolver solver = new CpSolver();
+        // log lines only arrive once the search runs, so they act on a cancel() that came too early for
+        // attach(); without a log callback of the options they are dropped
+        Consumer<String> log = options.getLogCallback();
+        options.copy().logTo(line -> {
+          handle.stopIfCancelled();
+          if (log != null) log.accept(line);
+        }).applyTo(solver);
+        handle.attach(solver);
+        b.metrics.phase("solve");
+        SolutionResult[] last = new SolutionResult[1];
+        CpSolverSolutionCallback cb = new CpSolverSolutionCallback() {
+          private int count;
+
+          @Override
+          public void onSolutionCallback() {
+            SolutionResult res = extract(b, this::solutionBooleanValue);
+            last[0] = res;
+            listener.onSolution(new SolutionEvent(++count, wallTime(), System.currentTimeMillis(),
+              objectiveValue(), bestObjectiveBound(), res));
+            if (handle.isCancelled()) stopSearch();
+          }
+        };
+        CpSolverStatus status = solver.solve(b.model, cb);
+        lastSolveStats = SolveStats.of(solver, status, options);
+        publish(b, solver, status);
+        if (last[0] != null) last[0].stats = lastSolveStats;
+        handle.complete(last[0] != null ? Optional.of(last[0]) : fallback());
+      } catch (RuntimeException | Error e) {
+        handle.fail(e);
+      }
+    });
+    return handle;
+  }
+
+  public Optional<SolutionResult> resolve(SolutionResult previous, Config changed) {
+    return resolve(previous, changed, false);
+  }
+
+  // Repairs a previous schedule after the data changed. Every previous assignment is passed to CP-SAT
+  // as a hint. With fixUntouched, assignments that are still feasible under the changed data are
+  // fixed and only the rest is re-placed; if that turns out infeasible the repair falls back to
+  // hints plus an objective that keeps as many previous assignments as possible.
+  public Optional<SolutionResult> resolve(SolutionResult previous, Config changed, boolean fixUntouched) {
+    CompiledInstance next = CompiledInstance.compile(changed);
+    // with room classes a previous room is kept as its class; the matching may pick another member
+    RoomClasses classes = roomClasses ? RoomClasses.of(next) : null;
+    Set<Long> kept = new HashSet<>();
+    for (Assignment a : previous.assignments) {
+      Integer c = changed.courseIndex.get(a.course), s = changed.slotIndex.get(a.slot);
+      Integer r = changed.roomIndex.get(a.room), p = changed.teacherIndex.get(a.teacher);
+      if (c == null || s == null || r == null || p == null) continue;
+      if (!next.isFeasible(c, s, r, p)) continue;
+      kept.add(classes == null ? tupleKey(next, c, s, r, p) : tupleKey(classes.collapsed, c, s, classes.classOf[r], p));
+    }
+
+    Optional<SolutionResult> res = Optional.empty();
+    if (fixUntouched) {
+      Built b = build(next);
+      for (int i = 0; i < b.size; i++) {
+        if (kept.contains(b.tupleKey(i))) b.model.addEquality(b.var(i), 1);
+      }
+      hint(b, kept);
+      res = run(b);
+    }
+    if (res.isEmpty()) {
+      Built b = build(next);
+      List<BoolVar> keep = new ArrayList<>();
+      for (int i = 0; i < b.size; i++) {
+        if (kept.contains(b.tupleKey(i))) keep.add(b.var(i));
+      }
+      b.model.maximize(LinearExpr.sum(keep.toArray(new BoolVar[0])));
+      hint(b, kept);
+      res = run(b);
+    }
+    res.ifPresent(r -> r.churn = countChanges(previous, r));
+    return res;
+  }
+
+  // Number of courses whose (slot, room, teacher) differs between two schedules, including courses
+  // present in only one of them
+  public static int countChanges(SolutionResult before, SolutionResult after) {
+    Map<String, Assignment> old = new HashMap<>();
+    for (Assignment a : before.assignments) old.put(a.course, a);
+    int changes = 0;
+    for (Assignment a : after.assignments) {
+      Assignment o = old.remove(a.course);
+      if (o == null || !o.slot.equals(a.slot) || !o.room.equals(a.room) || !o.teacher.equals(a.teacher)) changes++;
+    }
+    return changes + old.size();
+  }
+
+  static void hint(Built b, Set<Long> kept) {
+    PartialVariableAssignment.Builder hint = b.model.getBuilder().getSolutionHintBuilder();
+    for (int i = 0; i < b.size; i++) hint.addVars(b.vars[i]).addValues(kept.contains(b.tupleKey(i)) ? 1 : 0);
+  }
+
+  // The warm start, when the search ran out of time before finding anything and it checks out
+  private Optional<SolutionResult> fallback() {
+    if (!warmStartValid || lastSolveStats.status != CpSolverStatus.UNKNOWN) return Optional.empty();
+    if (!new ScheduleVerifier(inst).isValid(warmStart)) return Optional.empty();
+    SolutionResult res = new SolutionResult();
+    res.assignments.addAll(warmStart.assignments);
+    res.stats = lastSolveStats;
+    return Optional.of(res);
+  }
+
+  // Tuple keys of b for a schedule of inst; assignments that are unknown or infeasible are left out
+  static Set<Long> keys(CompiledInstance inst, Built b, SolutionResult schedule) {
+    Map<String, Integer> courses = indexOf(inst.courses), slots = indexOf(inst.timeSlots);
+    Map<String, Integer> rooms = indexOf(inst.rooms), teachers = indexOf(inst.teachers);
+    Set<Long> keys = new HashSet<>();
+    for (Assignment a : schedule.assignments) {
+      Integer c = courses.get(a.course), s = slots.get(a.slot), r = rooms.get(a.room), p = teachers.get(a.teacher);
+      if (c == null || s == null || r == null || p == null || !inst.isFeasible(c, s, r, p)) continue;
+      keys.add(tupleKey(b.inst, c, s, b.roomClasses == null ? r : b.roomClasses.classOf[r], p));
+    }
+    return keys;
+  }
+
+  private static Map<String, Integer> indexOf(String[] names) {
+    Map<String, Integer> index = new HashMap<>();
+    for (int i = 0; i < names.length; i++) index.put(names[i], i);
+    return index;
+  }
+
+  static long tupleKey(CompiledInstance inst, int c, int s, int r, int p) {
+    return (((long) c * inst.numSlots + s) * inst.numRooms + r) * inst.numTeachers + p;
+  }
+
+  // The CP-SAT model for an instance, with the handles needed to hint, constrain and read it back.
+  // Candidate i is (course, slot, room, teacher) = tuples[4i .. 4i+3], proto variable vars[i].
+  static final class Built {
+    final CompiledInstance inst;
+    final CpModel model;
+    final int size;
+    final int[] tuples;
+    final int[] vars;
+    // proto index of busy[p][s] at p * numSlots + s, -1 where teacher p has no candidate at s
+    final int[] busy;
+    final MetricsRecorder metrics;
+    // set when inst is RoomClasses.collapsed: rooms of the candidates are room classes
+    RoomClasses roomClasses;
+
+    Built(CompiledInstance inst, CpModel model, int size, int[] tuples, int[] vars, int[] busy,
+          MetricsRecorder metrics) {
+      this.inst = inst;
+      this.model = model;
+      this.size = size;
+      this.tuples = tuples;
+      this.vars = vars;
+      this.busy = busy;
+      this.metrics = metrics;
+    }
+
+    int course(int i) {
+      return tuples[4 * i];
+    }
+
+    int slot(int i) {
+      return tuples[4 * i + 1];
+    }
+
+    int room(int i) {
+      return tuples[4 * i + 2];
+    }
+
+    int teacher(int i) {
+      return tuples[4 * i + 3];
+    }
+
+    BoolVar var(int i) {
+      return model.getBoolVarFromProtoIndex(vars[i]);
+    }
+
+    BoolVar busy(int p, int s) {
+      int v = busy[p * inst.numSlots + s];
+      return v < 0 ? null : model.getBoolVarFromProtoIndex(v);
+    }
+
+    long tupleKey(int i) {
+      return SchedulerModel.tupleKey(inst, course(i), slot(i), room(i), teacher(i));
+    }
+  }
+
+  Built build(CompiledInstance inst) {
+    inst.requireSingleSessions("SchedulerModel");
+    long buildStart = System.nanoTime();
+    MetricsRecorder metrics = new MetricsRecorder(options.getMetricsListener() != null);
+    metrics.phase("load-natives");
     Loader.loadNativeLibraries();
     CpModel model = new CpModel();
+    metrics.attach(model);
 
-    int C = cfg.courses.length;
-    int S = cfg.timeSlots.length;
-    int R = cfg.rooms.length;
-    int P = cfg.teachers.length;
+    Built b;
+    if (roomClasses) {
+      metrics.phase("room-classes");
+      RoomClasses classes = RoomClasses.of(inst);
+      b = buildFull(classes.collapsed, model, metrics, classes.capacity());
+      b.roomClasses = classes;
+    } else if (template != null && background == null && template.fits(inst)) {
+      metrics.phase("template");
+      b = template.instantiate(inst, model, metrics);
+    } else {
+      b = buildFull(inst, model, metrics, null);
+    }
 
-    // BoolVar assign[c][s][r][p]
-    BoolVar[][][][] assign = new BoolVar[C][S][R][P];
+    if (objective != null) {
+      metrics.phase("objective");
+      addObjective(b, objective);
+    }
+    metrics.stop();
 
-    for (int c = 0; c < C; c++) {
-      String course = cfg.courses[c];
-      for (int s = 0; s < S; s++) {
-        String slot = cfg.timeSlots[s];
-        for (int r = 0; r < R; r++) {
-          String room = cfg.rooms[r];
-          for (int p = 0; p < P; p++) {
-            String teacher = cfg.teachers[p];
-            String name = String.format("c%d_s%d_r%d_p%d", c, s, r, p);
-            BoolVar v = model.newBoolVar(name);
-            assign[c][s][r][p] = v;
-
-            // Disallow if teacher not qualified
-            List<String> qual = cfg.teacherQualifications.getOrDefault(teacher, Collections.emptyList());
-            if (!qual.contains(course)) {
-              model.addEquality(v, 0);
-              continue;
-            }
-            // Disallow AP if not certified
-            if (cfg.apCourses.contains(course)) {
-              List<String> apList = cfg.apCertified.getOrDefault(teacher, Collections.emptyList());
-              if (!apList.contains(course)) {
-                model.addEquality(v, 0);
-                continue;
-              }
-            }
-            // Room type mismatch
-            String req = cfg.courseRoomRequirements.getOrDefault(course, "standard");
-            String rtype = cfg.roomTypes.getOrDefault(room, "standard");
-            if (!rtype.equals(req)) {
-              model.addEquality(v, 0);
-              continue;
-            }
-            // Teacher availability
-            List<String> tAvail = cfg.teacherAvailability.getOrDefault(teacher, Collections.emptyList());
-            if (!tAvail.contains(slot)) {
-              model.addEquality(v, 0);
-              continue;
-            }
-            // Room availability
-            List<String> rAvail = cfg.roomAvailability.getOrDefault(room, Collections.emptyList());
-            if (!rAvail.contains(slot)) {
-              model.addEquality(v, 0);
-              continue;
-            }
-          }
-        }
-      }
+    lastBuildStats = new BuildStats(layout.name(), model.getBuilder().getVariablesCount(),
+      model.getBuilder().getConstraintsCount(), (System.nanoTime() - buildStart) / 1_000_000L);
+    return b;
+  }
+
+  // roomCapacity: classes each room may hold per slot, null for one
+  private Built buildFull(CompiledInstance inst, CpModel model, MetricsRecorder metrics, int[] roomCapacity) {
+    metrics.phase("variables");
+    int[] tuples = candidates(inst, layout);
+    int n = tuples.length / 4;
+    return construction == Construction.DIRECT
+      ? new DirectModelBuilder(inst, model, variableNames, background, roomCapacity, metrics).build(model, layout, tuples, n)
+      : buildObjects(inst, model, metrics, tuples, n, roomCapacity);
+  }
+
+  private Built buildObjects(CompiledInstance inst, CpModel model, MetricsRecorder metrics, int[] tuples, int n,
+                             int[] roomCapacity) {
+    int C = inst.numCourses;
+    int S = inst.numSlots;
+    int R = inst.numRooms;
+    int P = inst.numTeachers;
+
+    // Variables that exist in the model, and the buckets each constraint family sums over
+    int[] vars = new int[n];
+    List<BoolVar>[] byCourse = buckets(C);
+    List<BoolVar>[] byRoomSlot = buckets(R * S);
+    List<BoolVar>[] byTeacherSlot = buckets(P * S);
+
+    for (int i = 0; i < n; i++) {
+      int c = tuples[4 * i], s = tuples[4 * i + 1], r = tuples[4 * i + 2], p = tuples[4 * i + 3];
+      BoolVar v = model.newBoolVar(variableNames ? String.format("c%d_s%d_r%d_p%d", c, s, r, p) : "");
+      if (layout == Layout.DENSE && !inst.isFeasible(c, s, r, p)) model.addEquality(v, 0);
+      vars[i] = v.getIndex();
+      byCourse[c].add(v);
+      byRoomSlot[r * S + s].add(v);
+      byTeacherSlot[p * S + s].add(v);
     }
 
     // Each course exactly once
+    metrics.phase("exactly-once");
     for (int c = 0; c < C; c++) {
-      List<BoolVar> terms = new ArrayList<>();
-      for (int s = 0; s < S; s++)
-        for (int r = 0; r < R; r++)
-          for (int p = 0; p < P; p++)
-            terms.add(assign[c][s][r][p]);
-      model.addEquality(LinearExpr.sum(terms.toArray(new BoolVar[0])), 1);
+      model.addEquality(LinearExpr.sum(byCourse[c].toArray(new BoolVar[0])), 1);
     }
 
     // One class per room per timeslot
+    metrics.phase("room-conflict");
     for (int s = 0; s < S; s++) {
       for (int r = 0; r < R; r++) {
-        List<BoolVar> terms = new ArrayList<>();
-        for (int c = 0; c < C; c++)
-          for (int p = 0; p < P; p++)
-            terms.add(assign[c][s][r][p]);
-        model.addLessOrEqual(LinearExpr.sum(terms.toArray(new BoolVar[0])), 1);
+        List<BoolVar> terms = byRoomSlot[r * S + s];
+        if (terms.isEmpty()) continue;
+        model.addLessOrEqual(LinearExpr.sum(terms.toArray(new BoolVar[0])), roomCapacity == null ? 1 : roomCapacity[r]);
       }
     }
 
-    // Teacher cannot teach more than one class at same timeslot
+    // Teacher cannot teach more than one class at same timeslot: busy[p][s] is the channeled sum,
+    // so the daily and consecutive limits below only need one term per slot
+    metrics.phase("teacher-conflict");
+    BoolVar[][] busy = new BoolVar[P][S];
+    int[] busyIndex = new int[P * S];
+    Arrays.fill(busyIndex, -1);
     for (int s = 0; s < S; s++) {
       for (int p = 0; p < P; p++) {
-        List<BoolVar> terms = new ArrayList<>();
-        for (int c = 0; c < C; c++)
-          for (int r = 0; r < R; r++)
-            terms.add(assign[c][s][r][p]);
-        model.addLessOrEqual(LinearExpr.sum(terms.toArray(new BoolVar[0])), 1);
+        List<BoolVar> terms = byTeacherSlot[p * S + s];
+        if (terms.isEmpty()) continue;
+        busy[p][s] = model.newBoolVar(variableNames ? String.format("busy_p%d_s%d", p, s) : "");
+        busyIndex[p * S + s] = busy[p][s].getIndex();
+        model.addEquality(LinearExpr.sum(terms.toArray(new BoolVar[0])), busy[p][s]);
       }
     }
 
-    // Day slot mapping
-    Map<String, List<Integer>> daySlots = new HashMap<>();
-    for (int s = 0; s < S; s++) {
-      String day = (String)cfg.slotInfo.get(cfg.timeSlots[s]).get("day");
-      daySlots.computeIfAbsent(day, k -> new ArrayList<>()).add(s);
-    }
-
     // Max classes per day and prep periods
+    metrics.phase("daily-limit");
     for (int p = 0; p < P; p++) {
-      String teacher = cfg.teachers[p];
-      int prepReq = cfg.requiredPrepPeriods.getOrDefault(teacher, 0);
-      for (Map.Entry<String, List<Integer>> e : daySlots.entrySet()) {
-        List<Integer> ds = e.getValue();
-        List<BoolVar> terms = new ArrayList<>();
-        for (int s : ds)
-          for (int c = 0; c < C; c++)
-            for (int r = 0; r < R; r++)
-              terms.add(assign[c][s][r][p]);
-        int allowed = Math.min(ds.size() - prepReq, cfg.maxClassesPerDay);
-        if (allowed < 0) allowed = 0;
-        model.addLessOrEqual(LinearExpr.sum(terms.toArray(new BoolVar[0])), allowed);
+      for (int d = 0; d < inst.numDays(); d++) {
+        List<BoolVar> terms = busyTerms(busy[p], inst.daySlots[d], 0, inst.daySlots[d].length);
+        if (terms.isEmpty()) continue;
+        int fixed = fixedCount(background, p, inst.daySlots[d], 0, inst.daySlots[d].length);
+        model.addLessOrEqual(LinearExpr.sum(terms.toArray(new BoolVar[0])), inst.allowedPerDay(p, d) - fixed);
       }
     }
 
     // Max consecutive teaching via sliding window per day
+    metrics.phase("consecutive");
+    int windowSize = inst.maxConsecutiveTeaching + 1;
     for (int p = 0; p < P; p++) {
-      String teacher = cfg.teachers[p];
-      for (Map.Entry<String, List<Integer>> e : daySlots.entrySet()) {
-        List<Integer> slotsForDay = new ArrayList<>(e.getValue());
-        slotsForDay.sort(Comparator.comparingInt(i -> (int)cfg.slotInfo.get(cfg.timeSlots[i]).get("hour")));
-        int windowSize = cfg.maxConsecutiveTeaching + 1;
-        for (int i = 0; i + windowSize <= slotsForDay.size(); i++) {
-          List<BoolVar> windowVars = new ArrayList<>();
-          for (int j = 0; j < windowSize; j++) {
-            int s = slotsForDay.get(i + j);
-            for (int c = 0; c < C; c++)
-              for (int r = 0; r < R; r++)
-                windowVars.add(assign[c][s][r][p]);
+      for (int[] slotsForDay : inst.daySlots) {
+        for (int i = 0; i + windowSize <= slotsForDay.length; i++) {
+          List<BoolVar> windowVars = busyTerms(busy[p], slotsForDay, i, i + windowSize);
+          int fixed = fixedCount(background, p, slotsForDay, i, i + windowSize);
+          if (windowVars.size() + fixed <= inst.maxConsecutiveTeaching) continue;
+          model.addLessOrEqual(LinearExpr.sum(windowVars.toArray(new BoolVar[0])), inst.maxConsecutiveTeaching - fixed);
+        }
+      }
+    }
+    return new Built(inst, model, n, tuples, vars, busyIndex, metrics);
+  }
+
+  // Candidate tuples (c, s, r, p), course-major. Counted first so the array has its final size.
+  static int[] candidates(CompiledInstance inst, Layout layout) {
+    inst.requireSingleSessions("SchedulerModel");
+    long count = 0;
+    for (int c = 0; c < inst.numCourses; c++) {
+      for (int s = 0; s < inst.numSlots; s++) {
+        if (layout == Layout.DENSE) count += (long) inst.numRooms * inst.numTeachers;
+        else count += (long) available(inst.courseRooms[c], inst.roomAvail, s) * available(inst.courseTeachers[c], inst.teacherAvail, s);
+      }
+    }
+    if (count > Integer.MAX_VALUE / 4) throw new IllegalArgumentException(count + " candidate tuples is too many for " + layout);
+
+    int[] tuples = new int[(int) count * 4];
+    int i = 0;
+    for (int c = 0; c < inst.numCourses; c++) {
+      for (int s = 0; s < inst.numSlots; s++) {
+        if (layout == Layout.SPARSE) {
+          for (int r : inst.courseRooms[c]) {
+            if (!inst.roomAvail[r].get(s)) continue;
+            for (int p : inst.courseTeachers[c]) {
+              if (!inst.teacherAvail[p].get(s)) continue;
+              i = putTuple(tuples, i, c, s, r, p);
+            }
+          }
+        } else {
+          for (int r = 0; r < inst.numRooms; r++) {
+            for (int p = 0; p < inst.numTeachers; p++) i = putTuple(tuples, i, c, s, r, p);
           }
-          model.addLessOrEqual(LinearExpr.sum(windowVars.toArray(new BoolVar[0])), cfg.maxConsecutiveTeaching);
         }
       }
     }
+    return tuples;
+  }
 
-    // Solve (feasible)
-    CpSolver solver = new CpSolver();
-    solver.getParameters().setMaxTimeInSeconds(20.0);
+  private static int available(int[] ids, BitSet[] avail, int s) {
+    int n = 0;
+    for (int id : ids) if (avail[id].get(s)) n++;
+    return n;
+  }
 
-    CpSolverStatus status = solver.solve(model);
+  private static int putTuple(int[] tuples, int i, int c, int s, int r, int p) {
+    tuples[i] = c;
+    tuples[i + 1] = s;
+    tuples[i + 2] = r;
+    tuples[i + 3] = p;
+    return i + 4;
+  }
 
+  Optional<SolutionResult> run(Built b) {
+    CpSolver solver = solveBuilt(b);
+    CpSolverStatus status = lastSolveStats.status;
+    Optional<SolutionResult> res = Optional.empty();
     if (status == CpSolverStatus.OPTIMAL || status == CpSolverStatus.FEASIBLE) {
-      // build result
-      SolutionResult res = new SolutionResult();
-      for (int c = 0; c < C; c++) {
-        for (int s = 0; s < S; s++) {
-          for (int r = 0; r < R; r++) {
-            for (int p = 0; p < P; p++) {
-              if (solver.booleanValue(assign[c][s][r][p])) {
-                res.assignments.add(new Assignment(cfg.courses[c], cfg.timeSlots[s], cfg.rooms[r], cfg.teachers[p]));
-              }
+      b.metrics.phase("extract");
+      res = Optional.of(extract(b, solver));
+    }
+    publish(b, solver, status);
+    return res;
+  }
+
+  private void publish(Built b, CpSolver solver, CpSolverStatus status) {
+    lastMetrics = b.metrics.finish(lastBuildStats.formulation, solver, status);
+    MetricsListener listener = options.getMetricsListener();
+    if (listener != null) listener.onMetrics(lastMetrics);
+  }
+
+  CpSolver solveBuilt(Built b) {
+    CpSolver solver = new CpSolver();
+    options.applyTo(solver);
+
+    b.metrics.phase("solve");
+    CpSolverStatus status = solver.solve(b.model);
+    b.metrics.stop();
+    lastSolveStats = SolveStats.of(solver, status, options);
+    return solver;
+  }
+
+  // Reads the schedule out of a solver that found a solution for b
+  SolutionResult extract(Built b, CpSolver solver) {
+    CpSolverResponse response = solver.response();
+    SolutionResult res = extract(b, v -> response.getSolution(v) != 0);
+    res.stats = lastSolveStats;
+    return res;
+  }
+
+  // isTrue reads a proto variable of the solution
+  static SolutionResult extract(Built b, IntPredicate isTrue) {
+    if (b.roomClasses != null) return b.roomClasses.extract(b, isTrue);
+    CompiledInstance inst = b.inst;
+    SolutionResult res = new SolutionResult();
+    for (int i = 0; i < b.size; i++) {
+      if (isTrue.test(b.vars[i])) {
+        res.assignments.add(new Assignment(inst.courses[b.course(i)], inst.timeSlots[b.slot(i)],
+          inst.rooms[b.room(i)], inst.teachers[b.teacher(i)]));
+      }
+    }
+    return res;
+  }
+
+  private void addObjective(Built built, ObjectiveWeights w) {
+    CompiledInstance inst = built.inst;
+    CpModel model = built.model;
+    int S = inst.numSlots;
+    int P = inst.numTeachers;
+    int B = inst.buildingNames.length;
+    LinearExprBuilder obj = LinearExpr.newBuilder();
+    BoolVar[][] busy = new BoolVar[P][S];
+    for (int p = 0; p < P; p++) {
+      for (int s = 0; s < S; s++) busy[p][s] = built.busy(p, s);
+    }
+
+    // Building changes: at[p][s][b] says teacher p teaches in building b at slot s. A move between
+    // consecutive slots s1, s2 is forced whenever at[s1][b] and busy[s2] - at[s2][b] are both 1.
+    if (w.buildingChange > 0 && B > 1) {
+      Map<Long, List<BoolVar>> inBuilding = new HashMap<>();
+      for (int i = 0; i < built.size; i++) {
+        long key = ((long) built.teacher(i) * S + built.slot(i)) * B + inst.roomBuilding[built.room(i)];
+        inBuilding.computeIfAbsent(key, x -> new ArrayList<>()).add(built.var(i));
+      }
+      Map<Long, BoolVar> at = new HashMap<>();
+      for (Map.Entry<Long, List<BoolVar>> e : inBuilding.entrySet()) {
+        BoolVar v = model.newBoolVar(variableNames ? "at_" + e.getKey() : "");
+        model.addEquality(LinearExpr.sum(e.getValue().toArray(new BoolVar[0])), v);
+        at.put(e.getKey(), v);
+      }
+      for (int p = 0; p < P; p++) {
+        for (int[] ds : inst.daySlots) {
+          for (int i = 0; i + 1 < ds.length; i++) {
+            int s1 = ds[i], s2 = ds[i + 1];
+            if (busy[p][s1] == null || busy[p][s2] == null) continue;
+            BoolVar move = model.newBoolVar(variableNames ? String.format("move_p%d_s%d", p, s1) : "");
+            for (int b = 0; b < B; b++) {
+              BoolVar here = at.get(((long) p * S + s1) * B + b);
+              if (here == null) continue;
+              LinearExprBuilder lhs = LinearExpr.newBuilder().add(move).add(1).addTerm(busy[p][s2], -1);
+              BoolVar there = at.get(((long) p * S + s2) * B + b);
+              if (there != null) lhs.add(there);
+              // move + 1 - busy[s2] + at[s2][b] >= at[s1][b]
+              model.addGreaterOrEqual(lhs, here);
             }
+            obj.addTerm(move, w.buildingChange);
           }
         }
       }
-      return Optional.of(res);
-    } else {
-      return Optional.empty();
     }
+
+    // Idle gaps: started[i] = some class at or before i, pending[i] = some class at or after i;
+    // a free slot with both set is a gap. Both are only bounded below, minimisation keeps them exact.
+    if (w.idleGap > 0) {
+      for (int p = 0; p < P; p++) {
+        for (int[] ds : inst.daySlots) {
+          int n = ds.length;
+          if (n < 3) continue;
+          BoolVar[] started = new BoolVar[n];
+          BoolVar[] pending = new BoolVar[n];
+          for (int i = 0; i < n; i++) {
+            started[i] = model.newBoolVar(variableNames ? String.format("started_p%d_s%d", p, ds[i]) : "");
+            if (busy[p][ds[i]] != null) model.addImplication(busy[p][ds[i]], started[i]);
+            if (i > 0) model.addImplication(started[i - 1], started[i]);
+          }
+          for (int i = n - 1; i >= 0; i--) {
+            pending[i] = model.newBoolVar(variableNames ? String.format("pending_p%d_s%d", p, ds[i]) : "");
+            if (busy[p][ds[i]] != null) model.addImplication(busy[p][ds[i]], pending[i]);
+            if (i < n - 1) model.addImplication(pending[i + 1], pending[i]);
+          }
+          for (int i = 1; i < n - 1; i++) {
+            BoolVar gap = model.newBoolVar(variableNames ? String.format("gap_p%d_s%d", p, ds[i]) : "");
+            // gap + busy + 1 >= started + pending
+            LinearExprBuilder lhs = LinearExpr.newBuilder().add(gap).add(1);
+            if (busy[p][ds[i]] != null) lhs.add(busy[p][ds[i]]);
+            model.addGreaterOrEqual(lhs, LinearExpr.newBuilder().add(started[i]).add(pending[i]));
+            obj.addTerm(gap, w.idleGap);
+          }
+        }
+      }
+    }
+
+    // Load imbalance: maxLoad - minLoad over teachers that can teach anything
+    if (w.loadImbalance > 0) {
+      IntVar maxLoad = model.newIntVar(0, S, variableNames ? "maxLoad" : "");
+      IntVar minLoad = model.newIntVar(0, S, variableNames ? "minLoad" : "");
+      boolean any = false;
+      for (int p = 0; p < P; p++) {
+        if (inst.eligible[p].isEmpty()) continue;
+        List<BoolVar> terms = new ArrayList<>();
+        for (int s = 0; s < S; s++) if (busy[p][s] != null) terms.add(busy[p][s]);
+        LinearExpr load = LinearExpr.sum(terms.toArray(new BoolVar[0]));
+        model.addLessOrEqual(load, maxLoad);
+        model.addGreaterOrEqual(load, minLoad);
+        any = true;
+      }
+      if (any) {
+        obj.addTerm(maxLoad, w.loadImbalance);
+        obj.addTerm(minLoad, -w.loadImbalance);
+      }
+    }
+
+    model.minimize(obj);
+  }
+
+  // Background classes of teacher p in slots[from, to)
+  static int fixedCount(BitSet[] background, int p, int[] slots, int from, int to) {
+    if (background == null) return 0;
+    int n = 0;
+    for (int i = from; i < to; i++) if (background[p].get(slots[i])) n++;
+    return n;
+  }
+
+  static List<BoolVar> busyTerms(BoolVar[] busy, int[] slots, int from, int to) {
+    List<BoolVar> terms = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      if (busy[slots[i]] != null) terms.add(busy[slots[i]]);
+    }
+    return terms;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<BoolVar>[] buckets(int n) {
+    List<BoolVar>[] b = new List[n];
+    for (int i = 0; i < n; i++) b[i] = new ArrayList<>();
+    return b;
   }
 
   // Simple DTOs
+  public static class BuildStats {
+    public final String formulation;
+    public final int variables;
+    public final int constraints;
+    public final long buildMillis;
+
+    public BuildStats(String formulation, int variables, int constraints, long buildMillis) {
+      this.formulation = formulation;
+      this.variables = variables;
+      this.constraints = constraints;
+      this.buildMillis = buildMillis;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s model: %d variables, %d constraints, built in %d ms",
+        formulation, variables, constraints, buildMillis);
+    }
+  }
+
+  public static class SolveStats {
+    public final CpSolverStatus status;
+    public final int workers;
+    public final double wallSeconds;
+    public final long conflicts;
+    public final long branches;
+    public final double objective;
+    public final double bestBound;
+    // name of the search worker that produced the returned solution
+    public final String solutionInfo;
+
+    public SolveStats(CpSolverStatus status, int workers, double wallSeconds, long conflicts, long branches,
+                      double objective, double bestBound, String solutionInfo) {
+      this.status = status;
+      this.workers = workers;
+      this.wallSeconds = wallSeconds;
+      this.conflicts = conflicts;
+      this.branches = branches;
+      this.objective = objective;
+      this.bestBound = bestBound;
+      this.solutionInfo = solutionInfo;
+    }
+
+    static SolveStats of(CpSolver solver, CpSolverStatus status, SolverOptions options) {
+      return new SolveStats(status, options.getWorkers(), solver.wallTime(), solver.numConflicts(),
+        solver.numBranches(), solver.objectiveValue(), solver.bestObjectiveBound(), solver.getSolutionInfo());
+    }
+
+    // |objective - bound| relative to the objective; 0 once optimality is proven
+    public double relativeGap() {
+      return Math.abs(objective - bestBound) / Math.max(1.0, Math.abs(objective));
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s in %.3fs with %s workers: %d conflicts, %d branches, objective %.1f, bound %.1f, found by %s",
+        status, wallSeconds, workers == 0 ? "default" : String.valueOf(workers), conflicts, branches,
+        objective, bestBound, solutionInfo);
+    }
+  }
+
   public static class SolutionResult {
     public final List<Assignment> assignments = new ArrayList<>();
+    // solver statistics of the solve that produced this result, null if it did not come from CP-SAT
+    public SolveStats stats;
+    // for repaired schedules, how many course placements differ from the previous one; otherwise -1
+    public int churn = -1;
   }
 
   public static class Assignment {
@@ -0,0 +1,274 @@
+package com.scheduler;
+
+import com.google.ortools.Loader;
+import com.google.ortools.sat.CpSolverStatus;
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.Layout;
+import com.scheduler.SchedulerModel.SolutionResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Long-running scheduling service on a loopback HTTP port. Natives are loaded once at start; every
+// submission becomes a job on a fixed pool of solver threads behind a bounded queue. A full queue is
+// answered with 429 and a Retry-After estimate rather than queued without limit.
+//
+//   POST   /jobs[?layout=sparse|dense&time=S]  body: instance file (see InstanceFile) -> 202 {"id": ...}
+//   GET    /jobs/{id}                          state and progress
+//   GET    /jobs/{id}/schedule                 assignments, once a solution exists
+//   DELETE /jobs/{id}                          cancels a queued or running job
+public class SchedulerService {
+  // TIMEOUT: the time limit ran out before a solution or a proof that none exists
+  public enum State { QUEUED, RUNNING, SOLVED, INFEASIBLE, TIMEOUT, CANCELLED, FAILED }
+
+  // finished jobs kept for polling before the oldest are dropped
+  private static final int MAX_RETAINED_JOBS = 1000;
+
+  private final int concurrentJobs;
+  private final SolverOptions options;
+  // package-private so tests can fill it
+  final ThreadPoolExecutor solvers;
+  private final HttpServer server;
+  private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+  // finished jobs, oldest first, for eviction
+  private final Queue<String> finished = new ConcurrentLinkedQueue<>();
+  private final AtomicLong nextId = new AtomicLong(1);
+
+  // Each of the concurrentJobs solver threads gets an equal share of the cores unless options fixes
+  // a worker count; at most queueCapacity jobs wait behind them.
+  public SchedulerService(int port, int concurrentJobs, int queueCapacity, SolverOptions options) throws IOException {
+    Loader.loadNativeLibraries();
+    this.concurrentJobs = concurrentJobs;
+    this.options = options.copy();
+    if (this.options.getWorkers() == 0) {
+      this.options.workers(Math.max(1, Runtime.getRuntime().availableProcessors() / concurrentJobs));
+    }
+    this.solvers = new ThreadPoolExecutor(concurrentJobs, concurrentJobs, 0L, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(queueCapacity));
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.createContext("/jobs", this::handle);
+    server.setExecutor(Executors.newFixedThreadPool(2));
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  // Stops accepting requests and cancels every job
+  public void stop() {
+    server.stop(0);
+    for (Job job : jobs.values()) if (job.handle != null) job.handle.cancel();
+    solvers.shutdownNow();
+    ((ExecutorService) server.getExecutor()).shutdownNow();
+  }
+
+  private static final class Job {
+    final String id;
+    final long submittedMillis = System.currentTimeMillis();
+    volatile SolveHandle handle;
+    volatile State state = State.QUEUED;
+    volatile long startedMillis;
+    volatile long finishedMillis;
+    volatile SolutionEvent last;
+    volatile SolutionResult result;
+    volatile String error;
+
+    Job(String id) {
+      this.id = id;
+    }
+  }
+
+  private void handle(HttpExchange ex) throws IOException {
+    try {
+      String[] path = ex.getRequestURI().getPath().split("/");
+      // "", "jobs", id, "schedule"
+      String method = ex.getRequestMethod();
+      if (path.length == 2 && method.equals("POST")) {
+        submit(ex);
+        return;
+      }
+      Job job = path.length >= 3 ? jobs.get(path[2]) : null;
+      if (job == null) {
+        send(ex, 404, "{\"error\": \"no such job\"}");
+      } else if (path.length == 3 && method.equals("GET")) {
+        send(ex, 200, status(job));
+      } else if (path.length == 3 && method.equals("DELETE")) {
+        // a queued job completes as cancelled as soon as a solver thread picks it up
+        job.handle.cancel();
+        send(ex, 202, status(job));
+      } else if (path.length == 4 && path[3].equals("schedule") && method.equals("GET")) {
+        SolutionResult res = job.result != null ? job.result : job.last != null ? job.last.result : null;
+        if (res == null) send(ex, 409, "{\"error\": \"no solution yet\", \"state\": \"" + job.state + "\"}");
+        else send(ex, 200, schedule(res));
+      } else {
+        send(ex, 405, "{\"error\": \"unsupported\"}");
+      }
+    } catch (RuntimeException e) {
+      send(ex, 500, "{\"error\": " + quote(String.valueOf(e.getMessage())) + "}");
+    } finally {
+      ex.close();
+    }
+  }
+
+  private void submit(HttpExchange ex) throws IOException {
+    Map<String, String> query = query(ex.getRequestURI());
+    CompiledInstance inst;
+    try {
+      byte[] body = ex.getRequestBody().readAllBytes();
+      inst = InstanceFile.read(ByteBuffer.wrap(body), "request");
+    } catch (IOException e) {
+      send(ex, 400, "{\"error\": " + quote(e.getMessage()) + "}");
+      return;
+    }
+    Layout layout = "dense".equals(query.get("layout")) ? Layout.DENSE : Layout.SPARSE;
+    SolverOptions jobOptions = options.copy();
+    try {
+      if (query.containsKey("time")) jobOptions.timeLimit(Double.parseDouble(query.get("time")));
+    } catch (IllegalArgumentException e) {
+      send(ex, 400, "{\"error\": " + quote("bad time: " + query.get("time")) + "}");
+      return;
+    }
+
+    Job job = new Job(Long.toString(nextId.getAndIncrement()));
+    // solveAsync hands its task to this executor; a full queue rejects it right here
+    Executor queued = task -> solvers.execute(() -> {
+      job.startedMillis = System.currentTimeMillis();
+      if (job.state == State.QUEUED) job.state = State.RUNNING;
+      task.run();
+    });
+    SchedulerModel model = new SchedulerModel(inst, layout, jobOptions);
+    try {
+      job.handle = model.solveAsync(e -> job.last = e, queued);
+    } catch (RejectedExecutionException e) {
+      ex.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds()));
+      send(ex, 429, "{\"error\": \"queue full\"}");
+      return;
+    }
+    jobs.put(job.id, job);
+    job.handle.result().whenComplete((res, e) -> {
+      if (e != null) {
+        job.error = String.valueOf(e.getMessage());
+        finish(job, State.FAILED);
+        return;
+      }
+      // a cancelled job keeps the best solution found before the cancel
+      job.result = res.orElse(null);
+      if (job.handle.isCancelled()) finish(job, State.CANCELLED);
+      else finish(job, res.isPresent() ? State.SOLVED : state(model.getSolveStats().status));
+    });
+    send(ex, 202, "{\"id\": " + quote(job.id) + ", \"state\": \"" + job.state + "\"}");
+  }
+
+  private void finish(Job job, State state) {
+    job.finishedMillis = System.currentTimeMillis();
+    job.state = state;
+    finished.add(job.id);
+    while (finished.size() > MAX_RETAINED_JOBS) {
+      String old = finished.poll();
+      if (old != null) jobs.remove(old);
+    }
+  }
+
+  // Final state of a job that ended without a solution
+  private static State state(CpSolverStatus status) {
+    switch (status) {
+      case INFEASIBLE:
+      case MODEL_INVALID:
+        return State.INFEASIBLE;
+      case UNKNOWN:
+        return State.TIMEOUT;
+      default:
+        return State.FAILED;
+    }
+  }
+
+  // Jobs ahead of a new one, in rounds of concurrentJobs, times the time limit
+  private long retryAfterSeconds() {
+    int ahead = solvers.getQueue().size() + solvers.getActiveCount();
+    double rounds = Math.ceil((double) ahead / concurrentJobs);
+    return Math.max(1, (long) Math.ceil(rounds * options.getTimeLimit()));
+  }
+
+  private static String status(Job job) {
+    StringBuilder sb = new StringBuilder("{");
+    sb.append("\"id\": ").append(quote(job.id));
+    sb.append(", \"state\": \"").append(job.state).append('"');
+    sb.append(", \"submittedMillis\": ").append(job.submittedMillis);
+    if (job.startedMillis != 0) sb.append(", \"startedMillis\": ").append(job.startedMillis);
+    if (job.finishedMillis != 0) sb.append(", \"finishedMillis\": ").append(job.finishedMillis);
+    SolutionEvent e = job.last;
+    if (e != null) {
+      sb.append(", \"solutions\": ").append(e.index);
+      sb.append(", \"wallSeconds\": ").append(e.wallSeconds);
+      sb.append(", \"objective\": ").append(e.objective);
+      sb.append(", \"bestBound\": ").append(e.bestBound);
+    }
+    if (job.error != null) sb.append(", \"error\": ").append(quote(job.error));
+    return sb.append('}').toString();
+  }
+
+  private static String schedule(SolutionResult res) {
+    StringBuilder sb = new StringBuilder("{\"assignments\": [");
+    for (int i = 0; i < res.assignments.size(); i++) {
+      Assignment a = res.assignments.get(i);
+      if (i > 0) sb.append(", ");
+      sb.append("{\"course\": ").append(quote(a.course))
+        .append(", \"slot\": ").append(quote(a.slot))
+        .append(", \"room\": ").append(quote(a.room))
+        .append(", \"teacher\": ").append(quote(a.teacher)).append('}');
+    }
+    return sb.append("]}").toString();
+  }
+
+  private static void send(HttpExchange ex, int code, String json) throws IOException {
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    ex.sendResponseHeaders(code, body.length);
+    try (OutputStream out = ex.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static Map<String, String> query(URI uri) {
+    Map<String, String> out = new HashMap<>();
+    String q = uri.getQuery();
+    if (q == null) return out;
+    for (String pair : q.split("&")) {
+      int eq = pair.indexOf('=');
+      if (eq > 0) out.put(pair.substring(0, eq), pair.substring(eq + 1));
+    }
+    return out;
+  }
+
+  private static String quote(String s) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      char ch = s.charAt(i);
+      switch (ch) {
+        case '"': sb.append("\\\""); break;
+        case '\\': sb.append("\\\\"); break;
+        case '\n': sb.append("\\n"); break;
+        case '\r': sb.append("\\r"); break;
+        case '\t': sb.append("\\t"); break;
+        default:
+          if (ch < 0x20) sb.append(String.format("\\u%04x", (int) ch));
+          else sb.append(ch);
+      }
+    }
+    return sb.append('"').toString();
+  }
+}
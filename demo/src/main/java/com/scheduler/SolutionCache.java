@@ -0,0 +1,240 @@
+package com.scheduler;
+
+import com.google.ortools.sat.CpSolverStatus;
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.SolutionResult;
+import com.scheduler.SchedulerModel.SolveStats;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Solution cache keyed by a SHA-256 of the canonical form of a Config and of the solver that
+// answers it, so a feasibility-only schedule never serves an optimization request. Entries live in
+// an in-memory LRU and in one file per key under a directory; both tiers are evicted
+// least-recently-used first once their byte budget is exceeded. A hit is re-checked against the
+// current constraints before use.
+public class SolutionCache {
+  private static final int MAGIC = 0x534f4c31; // "SOL1"
+
+  private final Path dir;
+  private final long maxMemoryBytes;
+  private final long maxDiskBytes;
+  private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+  private long memoryBytes;
+  private long hits;
+  private long misses;
+
+  public SolutionCache(Path dir, long maxMemoryBytes, long maxDiskBytes) throws IOException {
+    this.dir = Files.createDirectories(dir);
+    this.maxMemoryBytes = maxMemoryBytes;
+    this.maxDiskBytes = maxDiskBytes;
+  }
+
+  // Returns the cached solution for cfg if it still satisfies every constraint, otherwise solves
+  // with the solver built by the factory and stores the result if it does not depend on the time
+  // limit or gaps. solver fingerprints what the factory builds: formulation, layout, objective mode
+  // and weights.
+  public Optional<SolutionResult> solve(Config cfg, String solver, Function<CompiledInstance, ScheduleSolver> factory)
+      throws IOException {
+    String key = canonicalKey(cfg, solver);
+    CompiledInstance inst = CompiledInstance.compile(cfg);
+    Optional<SolutionResult> cached = get(key);
+    if (cached.isPresent()) {
+      if (new ScheduleVerifier(inst).isValid(cached.get())) {
+        synchronized (this) { hits++; }
+        return cached;
+      }
+      remove(key);
+    }
+    synchronized (this) { misses++; }
+    Optional<SolutionResult> solved = factory.apply(inst).solve();
+    if (solved.isPresent() && cacheable(solved.get())) put(key, solved.get());
+    return solved;
+  }
+
+  // Proven optimal, or feasible with no objective gap left (a feasibility-only result has objective
+  // and bound 0); a time-limited incumbent or an UNKNOWN fallback could be improved by a longer solve
+  static boolean cacheable(SolutionResult res) {
+    SolveStats st = res.stats;
+    if (st == null) return false;
+    return st.status == CpSolverStatus.OPTIMAL || (st.status == CpSolverStatus.FEASIBLE && st.relativeGap() == 0);
+  }
+
+  public synchronized Optional<SolutionResult> get(String key) throws IOException {
+    byte[] data = memory.get(key);
+    if (data == null) {
+      Path file = fileFor(key);
+      if (!Files.exists(file)) return Optional.empty();
+      data = Files.readAllBytes(file);
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      remember(key, data);
+    }
+    return Optional.of(decode(data));
+  }
+
+  public synchronized void put(String key, SolutionResult res) throws IOException {
+    byte[] data = encode(res);
+    remember(key, data);
+    Path tmp = Files.createTempFile(dir, key, ".tmp");
+    Files.write(tmp, data);
+    Files.move(tmp, fileFor(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    evictDisk();
+  }
+
+  public synchronized void remove(String key) throws IOException {
+    byte[] old = memory.remove(key);
+    if (old != null) memoryBytes -= old.length;
+    Files.deleteIfExists(fileFor(key));
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  // Stable hash of every Config field plus the solver fingerprint. Arrays keep their order (it defines
+  // the ids), maps are walked in key order and list values are treated as sets.
+  public static String canonicalKey(Config cfg, String solver) {
+    try {
+      MessageDigest sha = MessageDigest.getInstance("SHA-256");
+      try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), sha))) {
+        writeArray(out, "teachers", cfg.teachers);
+        writeArray(out, "courses", cfg.courses);
+        writeArray(out, "timeSlots", cfg.timeSlots);
+        writeArray(out, "rooms", cfg.rooms);
+        out.writeUTF("slotInfo");
+        out.writeInt(cfg.slotInfo.size());
+        for (String slot : new TreeSet<>(cfg.slotInfo.keySet())) {
+          out.writeUTF(slot);
+          Map<String, Object> meta = new TreeMap<>(cfg.slotInfo.get(slot));
+          out.writeInt(meta.size());
+          for (Map.Entry<String, Object> e : meta.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeUTF(String.valueOf(e.getValue()));
+          }
+        }
+        writeMap(out, "roomBuildings", cfg.roomBuildings);
+        writeMap(out, "roomTypes", cfg.roomTypes);
+        writeMap(out, "courseRoomRequirements", cfg.courseRoomRequirements);
+        writeArray(out, "apCourses", new TreeSet<>(cfg.apCourses).toArray(new String[0]));
+        writeListMap(out, "teacherQualifications", cfg.teacherQualifications);
+        writeListMap(out, "apCertified", cfg.apCertified);
+        writeListMap(out, "teacherAvailability", cfg.teacherAvailability);
+        writeListMap(out, "roomAvailability", cfg.roomAvailability);
+        writeMap(out, "requiredPrepPeriods", cfg.requiredPrepPeriods);
+        writeMap(out, "courseSessions", cfg.courseSessions);
+        writeMap(out, "courseSessionLength", cfg.courseSessionLength);
+        out.writeUTF("limits");
+        out.writeInt(cfg.maxConsecutiveTeaching);
+        out.writeInt(cfg.maxClassesPerDay);
+        out.writeUTF("solver");
+        out.writeUTF(solver);
+      }
+      StringBuilder hex = new StringBuilder();
+      for (byte b : sha.digest()) hex.append(String.format("%02x", b));
+      return hex.toString();
+    } catch (NoSuchAlgorithmException | IOException e) {
+      throw new IllegalStateException("cannot hash config", e);
+    }
+  }
+
+  private void remember(String key, byte[] data) {
+    byte[] old = memory.put(key, data);
+    if (old != null) memoryBytes -= old.length;
+    memoryBytes += data.length;
+    Iterator<Map.Entry<String, byte[]>> it = memory.entrySet().iterator();
+    while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+      Map.Entry<String, byte[]> eldest = it.next();
+      if (eldest.getKey().equals(key)) continue;
+      memoryBytes -= eldest.getValue().length;
+      it.remove();
+    }
+  }
+
+  private void evictDisk() throws IOException {
+    List<Path> files;
+    try (Stream<Path> listing = Files.list(dir)) {
+      files = new ArrayList<>(listing.filter(f -> f.toString().endsWith(".sol")).toList());
+    }
+    long total = 0;
+    Map<Path, Long> sizes = new HashMap<>();
+    Map<Path, FileTime> touched = new HashMap<>();
+    for (Path f : files) {
+      sizes.put(f, Files.size(f));
+      touched.put(f, Files.getLastModifiedTime(f));
+      total += sizes.get(f);
+    }
+    files.sort(Comparator.comparing(touched::get));
+    for (Path f : files) {
+      if (total <= maxDiskBytes) break;
+      Files.deleteIfExists(f);
+      total -= sizes.get(f);
+    }
+  }
+
+  private Path fileFor(String key) {
+    return dir.resolve(key + ".sol");
+  }
+
+  static byte[] encode(SolutionResult res) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(MAGIC);
+      out.writeInt(res.assignments.size());
+      for (Assignment a : res.assignments) {
+        out.writeUTF(a.course);
+        out.writeUTF(a.slot);
+        out.writeUTF(a.room);
+        out.writeUTF(a.teacher);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  static SolutionResult decode(byte[] data) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+      if (in.readInt() != MAGIC) throw new IOException("not a cached solution");
+      int n = in.readInt();
+      SolutionResult res = new SolutionResult();
+      for (int i = 0; i < n; i++) {
+        res.assignments.add(new Assignment(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()));
+      }
+      return res;
+    }
+  }
+
+  private static void writeArray(DataOutputStream out, String field, String[] values) throws IOException {
+    out.writeUTF(field);
+    out.writeInt(values.length);
+    for (String v : values) out.writeUTF(v);
+  }
+
+  private static void writeMap(DataOutputStream out, String field, Map<String, ?> map) throws IOException {
+    out.writeUTF(field);
+    out.writeInt(map.size());
+    for (Map.Entry<String, ?> e : new TreeMap<>(map).entrySet()) {
+      out.writeUTF(e.getKey());
+      out.writeUTF(String.valueOf(e.getValue()));
+    }
+  }
+
+  private static void writeListMap(DataOutputStream out, String field, Map<String, List<String>> map)
+      throws IOException {
+    out.writeUTF(field);
+    out.writeInt(map.size());
+    for (Map.Entry<String, List<String>> e : new TreeMap<>(map).entrySet()) {
+      out.writeUTF(e.getKey());
+      writeArray(out, "", new TreeSet<>(e.getValue()).toArray(new String[0]));
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.SolutionResult;
+
+// One improving solution reported while CP-SAT is still searching.
+public final class SolutionEvent {
+  // 1 for the first solution, then increasing
+  public final int index;
+  // seconds since the solve started, as measured by CP-SAT
+  public final double wallSeconds;
+  public final long timestampMillis;
+  public final double objective;
+  public final double bestBound;
+  public final SolutionResult result;
+
+  public SolutionEvent(int index, double wallSeconds, long timestampMillis, double objective, double bestBound,
+                       SolutionResult result) {
+    this.index = index;
+    this.wallSeconds = wallSeconds;
+    this.timestampMillis = timestampMillis;
+    this.objective = objective;
+    this.bestBound = bestBound;
+    this.result = result;
+  }
+}
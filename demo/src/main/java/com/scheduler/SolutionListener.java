@@ -0,0 +1,9 @@
+package com.scheduler;
+
+// Receives each improving solution on the solver thread; keep it short or hand off. A
+// java.util.concurrent.SubmissionPublisher can be plugged in directly as publisher::submit to expose the
+// stream as a Flow.Publisher.
+@FunctionalInterface
+public interface SolutionListener {
+  void onSolution(SolutionEvent event);
+}
@@ -0,0 +1,50 @@
+package com.scheduler;
+
+import com.google.ortools.sat.CpSolver;
+import com.scheduler.SchedulerModel.SolutionResult;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+// Running streaming solve. result() completes with the last solution found (empty if none) once the
+// search ends, either on its own or after cancel().
+public final class SolveHandle {
+  private final CompletableFuture<Optional<SolutionResult>> result = new CompletableFuture<>();
+  private volatile CpSolver solver;
+  private volatile boolean cancelled;
+
+  // Stops the search; the best solution so far is still delivered through result()
+  public void cancel() {
+    cancelled = true;
+    CpSolver s = solver;
+    if (s != null) s.stopSearch();
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  public CompletableFuture<Optional<SolutionResult>> result() {
+    return result;
+  }
+
+  void attach(CpSolver solver) {
+    this.solver = solver;
+    if (cancelled) solver.stopSearch();
+  }
+
+  // stopSearch() only reaches a search that has started, so a cancel() between attach() and the start
+  // of CpSolver.solve is lost; the solve calls this again from its log callback once it is running
+  void stopIfCancelled() {
+    CpSolver s = solver;
+    if (cancelled && s != null) s.stopSearch();
+  }
+
+  void complete(Optional<SolutionResult> res) {
+    result.complete(res);
+  }
+
+  void fail(Throwable t) {
+    result.completeExceptionally(t);
+  }
+}
@@ -0,0 +1,124 @@
+package com.scheduler;
+
+import com.google.ortools.sat.CpSolverStatus;
+
+import java.util.List;
+
+// Performance record of one build + solve: wall time and allocation per pipeline phase, model size per
+// constraint family and the CP-SAT response statistics
+public class SolveMetrics {
+  public static class Phase {
+    public final String name;
+    public final long wallNanos;
+    // bytes allocated by the calling thread during the phase; -1 when the JVM cannot tell. CP-SAT's
+    // own memory is native and not included.
+    public final long allocatedBytes;
+
+    public Phase(String name, long wallNanos, long allocatedBytes) {
+      this.name = name;
+      this.wallNanos = wallNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+
+  // What one model-building phase added to the model
+  public static class Family {
+    public final String name;
+    public final int variables;
+    public final int constraints;
+    // variable/literal occurrences over the family's constraints, enforcement literals included;
+    // -1 when not counted (no metrics listener was set)
+    public final long terms;
+
+    public Family(String name, int variables, int constraints, long terms) {
+      this.name = name;
+      this.variables = variables;
+      this.constraints = constraints;
+      this.terms = terms;
+    }
+  }
+
+  public final String formulation;
+  public final long timestampMillis;
+  public final List<Phase> phases;
+  public final List<Family> families;
+  public final int variables;
+  public final int constraints;
+
+  public final CpSolverStatus status;
+  public final long conflicts;
+  public final long branches;
+  // Boolean variables of the presolved model and how many of them are fixed; set against variables
+  // this shows how much presolve removed
+  public final long booleans;
+  public final long fixedBooleans;
+  public final long propagations;
+  public final long restarts;
+  public final double deterministicTime;
+  public final double solveWallSeconds;
+
+  public SolveMetrics(String formulation, long timestampMillis, List<Phase> phases, List<Family> families,
+                      int variables, int constraints, CpSolverStatus status, long conflicts, long branches,
+                      long booleans, long fixedBooleans, long propagations, long restarts,
+                      double deterministicTime, double solveWallSeconds) {
+    this.formulation = formulation;
+    this.timestampMillis = timestampMillis;
+    this.phases = phases;
+    this.families = families;
+    this.variables = variables;
+    this.constraints = constraints;
+    this.status = status;
+    this.conflicts = conflicts;
+    this.branches = branches;
+    this.booleans = booleans;
+    this.fixedBooleans = fixedBooleans;
+    this.propagations = propagations;
+    this.restarts = restarts;
+    this.deterministicTime = deterministicTime;
+    this.solveWallSeconds = solveWallSeconds;
+  }
+
+  public Phase phase(String name) {
+    for (Phase p : phases) if (p.name.equals(name)) return p;
+    return null;
+  }
+
+  public long totalNanos() {
+    long total = 0;
+    for (Phase p : phases) total += p.wallNanos;
+    return total;
+  }
+
+  public long totalTerms() {
+    long total = 0;
+    for (Family f : families) {
+      if (f.terms < 0) return -1;
+      total += f.terms;
+    }
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%s: %s, %d variables, %d constraints, %s terms%n",
+      formulation, status, variables, constraints, count(totalTerms())));
+    sb.append(String.format("  %-18s %10s %12s%n", "phase", "ms", "alloc KB"));
+    for (Phase p : phases) {
+      sb.append(String.format("  %-18s %10.2f %12s%n", p.name, p.wallNanos / 1e6,
+        p.allocatedBytes < 0 ? "n/a" : String.valueOf(p.allocatedBytes >> 10)));
+    }
+    sb.append(String.format("  %-18s %10s %12s %12s%n", "family", "variables", "constraints", "terms"));
+    for (Family f : families) {
+      sb.append(String.format("  %-18s %10d %12d %12s%n", f.name, f.variables, f.constraints, count(f.terms)));
+    }
+    sb.append(String.format("  solver: %d conflicts, %d branches, %d propagations, %d restarts, "
+        + "%d booleans after presolve (%d fixed), %.3f deterministic s",
+      conflicts, branches, propagations, restarts, booleans, fixedBooleans, deterministicTime));
+    return sb.toString();
+  }
+
+  private static String count(long n) {
+    return n < 0 ? "n/a" : String.valueOf(n);
+  }
+}
@@ -0,0 +1,115 @@
+package com.scheduler;
+
+import com.google.ortools.sat.CpSolver;
+import com.google.ortools.sat.SatParameters;
+
+import java.util.function.Consumer;
+
+// CP-SAT search settings shared by the formulations. Setters are chainable:
+//   SolverOptions.portfolio().timeLimit(5).relativeGap(0.01)
+public final class SolverOptions {
+  private int numWorkers = 0;
+  private double timeLimitSeconds = 20.0;
+  private double relativeGapLimit = -1;
+  private double absoluteGapLimit = -1;
+  private int randomSeed = -1;
+  private Consumer<String> logCallback;
+  private MetricsListener metricsListener;
+
+  // Solver defaults with the historical 20s limit
+  public static SolverOptions defaults() {
+    return new SolverOptions();
+  }
+
+  // One search worker per available core
+  public static SolverOptions portfolio() {
+    return new SolverOptions().workers(Runtime.getRuntime().availableProcessors());
+  }
+
+  public SolverOptions copy() {
+    SolverOptions o = new SolverOptions();
+    o.numWorkers = numWorkers;
+    o.timeLimitSeconds = timeLimitSeconds;
+    o.relativeGapLimit = relativeGapLimit;
+    o.absoluteGapLimit = absoluteGapLimit;
+    o.randomSeed = randomSeed;
+    o.logCallback = logCallback;
+    o.metricsListener = metricsListener;
+    return o;
+  }
+
+  // 0 lets CP-SAT decide
+  public SolverOptions workers(int numWorkers) {
+    if (numWorkers < 0) throw new IllegalArgumentException("numWorkers must be >= 0");
+    this.numWorkers = numWorkers;
+    return this;
+  }
+
+  public SolverOptions timeLimit(double seconds) {
+    if (seconds <= 0) throw new IllegalArgumentException("time limit must be positive");
+    this.timeLimitSeconds = seconds;
+    return this;
+  }
+
+  // Stop once (bound - objective) / objective is below this; only meaningful with an objective
+  public SolverOptions relativeGap(double gap) {
+    if (gap < 0) throw new IllegalArgumentException("relative gap must be >= 0");
+    this.relativeGapLimit = gap;
+    return this;
+  }
+
+  // Stop once bound and objective are within this many objective units
+  public SolverOptions absoluteGap(double gap) {
+    if (gap < 0) throw new IllegalArgumentException("absolute gap must be >= 0");
+    this.absoluteGapLimit = gap;
+    return this;
+  }
+
+  public SolverOptions seed(int seed) {
+    if (seed < 0) throw new IllegalArgumentException("seed must be >= 0");
+    this.randomSeed = seed;
+    return this;
+  }
+
+  // Routes the CP-SAT search log to the callback instead of stdout
+  public SolverOptions logTo(Consumer<String> callback) {
+    this.logCallback = callback;
+    return this;
+  }
+
+  // Receives a SolveMetrics record after every solve made with these options
+  public SolverOptions metricsTo(MetricsListener listener) {
+    this.metricsListener = listener;
+    return this;
+  }
+
+  public Consumer<String> getLogCallback() {
+    return logCallback;
+  }
+
+  public MetricsListener getMetricsListener() {
+    return metricsListener;
+  }
+
+  public int getWorkers() {
+    return numWorkers;
+  }
+
+  public double getTimeLimit() {
+    return timeLimitSeconds;
+  }
+
+  public void applyTo(CpSolver solver) {
+    SatParameters.Builder params = solver.getParameters();
+    params.setMaxTimeInSeconds(timeLimitSeconds);
+    if (numWorkers > 0) params.setNumWorkers(numWorkers);
+    if (relativeGapLimit >= 0) params.setRelativeGapLimit(relativeGapLimit);
+    if (absoluteGapLimit >= 0) params.setAbsoluteGapLimit(absoluteGapLimit);
+    if (randomSeed >= 0) params.setRandomSeed(randomSeed);
+    if (logCallback != null) {
+      params.setLogSearchProgress(true);
+      params.setLogToStdout(false);
+      solver.setLogCallback(logCallback);
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.SolutionResult;
+
+import java.util.*;
+
+// Read-only lookup tables over one schedule, built once. Every query below is an array read or a
+// short word scan and allocates nothing; ids are those of the CompiledInstance the index was built
+// for, and -1 means "nothing". Safe to share between threads.
+//
+// The per-slot tables hold every placement, so schedules of multi-session courses (IntervalSchedulerModel)
+// index correctly by teacher, room and slot. The per-course lookups (courseSlot, courseRoom,
+// courseTeacher) hold one placement per course and are only meaningful for single-session courses; for
+// others they return the last placement listed.
+public final class TimetableIndex {
+  private final CompiledInstance inst;
+  private final int S;
+  private final int D;
+  // course id per teacher x slot and per room x slot
+  private final int[] teacherCourse;
+  private final int[] roomCourse;
+  // placement per course; the last one listed for multi-session courses
+  private final int[] courseSlot;
+  private final int[] courseRoom;
+  private final int[] courseTeacher;
+  private final int[] teacherLoad;
+  // occupied slots per teacher x day
+  private final int[] teacherDayLoad;
+  // per slot: available and unused rooms / teachers, as bitset words
+  private final int roomWords;
+  private final int teacherWords;
+  private final long[] freeRooms;
+  private final long[] freeTeachers;
+  private final Map<String, Integer> teacherIds;
+  private final Map<String, Integer> courseIds;
+  private final Map<String, Integer> slotIds;
+  private final Map<String, Integer> roomIds;
+
+  public TimetableIndex(CompiledInstance inst, SolutionResult res) {
+    this.inst = inst;
+    this.S = inst.numSlots;
+    this.D = inst.numDays();
+    teacherIds = ids(inst.teachers);
+    courseIds = ids(inst.courses);
+    slotIds = ids(inst.timeSlots);
+    roomIds = ids(inst.rooms);
+
+    teacherCourse = new int[inst.numTeachers * S];
+    roomCourse = new int[inst.numRooms * S];
+    courseSlot = new int[inst.numCourses];
+    courseRoom = new int[inst.numCourses];
+    courseTeacher = new int[inst.numCourses];
+    teacherLoad = new int[inst.numTeachers];
+    teacherDayLoad = new int[inst.numTeachers * D];
+    Arrays.fill(teacherCourse, -1);
+    Arrays.fill(roomCourse, -1);
+    Arrays.fill(courseSlot, -1);
+    Arrays.fill(courseRoom, -1);
+    Arrays.fill(courseTeacher, -1);
+
+    for (Assignment a : res.assignments) {
+      int c = id(courseIds, a.course, "course");
+      int s = id(slotIds, a.slot, "slot");
+      int r = id(roomIds, a.room, "room");
+      int p = id(teacherIds, a.teacher, "teacher");
+      if (teacherCourse[p * S + s] < 0) teacherDayLoad[p * D + inst.slotDay[s]]++;
+      teacherCourse[p * S + s] = c;
+      roomCourse[r * S + s] = c;
+      courseSlot[c] = s;
+      courseRoom[c] = r;
+      courseTeacher[c] = p;
+      teacherLoad[p]++;
+    }
+
+    roomWords = words(inst.numRooms);
+    teacherWords = words(inst.numTeachers);
+    freeRooms = new long[S * roomWords];
+    freeTeachers = new long[S * teacherWords];
+    for (int r = 0; r < inst.numRooms; r++) {
+      BitSet avail = inst.roomAvail[r];
+      for (int s = avail.nextSetBit(0); s >= 0 && s < S; s = avail.nextSetBit(s + 1)) {
+        if (roomCourse[r * S + s] < 0) freeRooms[s * roomWords + (r >>> 6)] |= 1L << r;
+      }
+    }
+    for (int p = 0; p < inst.numTeachers; p++) {
+      BitSet avail = inst.teacherAvail[p];
+      for (int s = avail.nextSetBit(0); s >= 0 && s < S; s = avail.nextSetBit(s + 1)) {
+        if (teacherCourse[p * S + s] < 0) freeTeachers[s * teacherWords + (p >>> 6)] |= 1L << p;
+      }
+    }
+  }
+
+  public CompiledInstance instance() {
+    return inst;
+  }
+
+  // name -> id, -1 when unknown
+  public int teacherId(String name) {
+    return teacherIds.getOrDefault(name, -1);
+  }
+
+  public int courseId(String name) {
+    return courseIds.getOrDefault(name, -1);
+  }
+
+  public int slotId(String name) {
+    return slotIds.getOrDefault(name, -1);
+  }
+
+  public int roomId(String name) {
+    return roomIds.getOrDefault(name, -1);
+  }
+
+  // What teacher p teaches at slot s
+  public int courseOfTeacher(int p, int s) {
+    return teacherCourse[p * S + s];
+  }
+
+  // What is held in room r at slot s
+  public int courseInRoom(int r, int s) {
+    return roomCourse[r * S + s];
+  }
+
+  public int slotOf(int c) {
+    return courseSlot[c];
+  }
+
+  public int roomOf(int c) {
+    return courseRoom[c];
+  }
+
+  public int teacherOf(int c) {
+    return courseTeacher[c];
+  }
+
+  public int teacherLoad(int p) {
+    return teacherLoad[p];
+  }
+
+  // Classes teacher p teaches on day d
+  public int teacherLoad(int p, int d) {
+    return teacherDayLoad[p * D + d];
+  }
+
+  public boolean isRoomFree(int r, int s) {
+    return (freeRooms[s * roomWords + (r >>> 6)] & (1L << r)) != 0;
+  }
+
+  public boolean isTeacherFree(int p, int s) {
+    return (freeTeachers[s * teacherWords + (p >>> 6)] & (1L << p)) != 0;
+  }
+
+  // Free rooms at s from id `from` on, -1 when none is left:
+  //   for (int r = idx.nextFreeRoom(s, 0); r >= 0; r = idx.nextFreeRoom(s, r + 1))
+  public int nextFreeRoom(int s, int from) {
+    return nextSet(freeRooms, s * roomWords, roomWords, from, inst.numRooms);
+  }
+
+  public int nextFreeTeacher(int s, int from) {
+    return nextSet(freeTeachers, s * teacherWords, teacherWords, from, inst.numTeachers);
+  }
+
+  // Next free room at s that has the room type course c needs
+  public int nextFreeRoomFor(int c, int s, int from) {
+    for (int r = nextFreeRoom(s, from); r >= 0; r = nextFreeRoom(s, r + 1)) {
+      if (inst.roomType[r] == inst.courseRoomType[c]) return r;
+    }
+    return -1;
+  }
+
+  // Substitutes: next teacher who is free at s and may teach course c
+  public int nextSubstitute(int c, int s, int from) {
+    for (int p = nextFreeTeacher(s, from); p >= 0; p = nextFreeTeacher(s, p + 1)) {
+      if (inst.eligible[p].get(c)) return p;
+    }
+    return -1;
+  }
+
+  // Copies the free rooms / teachers of slot s into out (cleared first), for callers that want to
+  // combine them with their own bitsets
+  public void freeRooms(int s, BitSet out) {
+    copy(freeRooms, s * roomWords, roomWords, out);
+  }
+
+  public void freeTeachers(int s, BitSet out) {
+    copy(freeTeachers, s * teacherWords, teacherWords, out);
+  }
+
+  private static int nextSet(long[] bits, int base, int nWords, int from, int limit) {
+    if (from >= limit) return -1;
+    int w = from >>> 6;
+    long word = bits[base + w] & (-1L << from);
+    while (true) {
+      if (word != 0) {
+        int i = (w << 6) + Long.numberOfTrailingZeros(word);
+        return i < limit ? i : -1;
+      }
+      if (++w == nWords) return -1;
+      word = bits[base + w];
+    }
+  }
+
+  private static void copy(long[] bits, int base, int nWords, BitSet out) {
+    out.clear();
+    for (int w = 0; w < nWords; w++) {
+      long word = bits[base + w];
+      while (word != 0) {
+        out.set((w << 6) + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+
+  private static int words(int n) {
+    return Math.max(1, (n + 63) >>> 6);
+  }
+
+  private static int id(Map<String, Integer> ids, String name, String what) {
+    Integer id = ids.get(name);
+    if (id == null) throw new IllegalArgumentException("unknown " + what + " in schedule: " + name);
+    return id;
+  }
+
+  private static Map<String, Integer> ids(String[] names) {
+    Map<String, Integer> ids = new HashMap<>();
+    for (int i = 0; i < names.length; i++) ids.put(names[i], i);
+    return ids;
+  }
+}
@@ -0,0 +1,70 @@
+package com.scheduler;
+
+import com.scheduler.FeasibilityScreen.Issue;
+import com.scheduler.FeasibilityScreen.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeasibilityScreenTest {
+  @Test
+  void passesSchedulableInstances() {
+    assertEquals(List.of(), FeasibilityScreen.screen(new Config()));
+    assertEquals(List.of(), FeasibilityScreen.screen(TestSchools.tiny()));
+  }
+
+  @Test
+  void flagsCourseWithoutQualifiedTeacher() {
+    Config cfg = TestSchools.tiny();
+    cfg.teacherQualifications.put("Bob", new ArrayList<>(List.of("Math", "AP Calc")));
+    assertIssue(cfg, Kind.NO_QUALIFIED_TEACHER, "Physics");
+  }
+
+  @Test
+  void flagsApCourseWithoutCertifiedTeacher() {
+    Config cfg = TestSchools.tiny();
+    cfg.apCertified.remove("Alice");
+    assertIssue(cfg, Kind.NO_AP_CERTIFIED_TEACHER, "AP Calc");
+  }
+
+  @Test
+  void flagsMissingRoomType() {
+    Config cfg = TestSchools.tiny();
+    cfg.roomTypes.put("Lab 1", "standard");
+    assertIssue(cfg, Kind.NO_ROOM_OF_TYPE, "Physics");
+  }
+
+  @Test
+  void flagsNoCommonAvailability() {
+    Config cfg = TestSchools.tiny();
+    // Bob, the only Physics teacher, is only free while the lab is closed
+    cfg.teacherAvailability.put("Bob", new ArrayList<>(List.of("Mon 8-9")));
+    assertIssue(cfg, Kind.NO_COMMON_AVAILABILITY, "Physics");
+  }
+
+  @Test
+  void flagsOverloadedTeacher() {
+    Config cfg = TestSchools.tiny(3, 1);
+    // Alice is the only teacher left for Math and AP Calc but free on one day only
+    cfg.teacherQualifications.put("Bob", new ArrayList<>(List.of("Physics")));
+    cfg.teacherAvailability.put("Alice", new ArrayList<>(List.of("Mon 8-9", "Mon 9-10")));
+    assertIssue(cfg, Kind.TEACHER_OVERLOADED, "Alice");
+  }
+
+  @Test
+  void flagsOverloadedStaff() {
+    Config cfg = TestSchools.tiny(1, 1);
+    cfg.teacherAvailability.put("Alice", new ArrayList<>(List.of("Mon 8-9")));
+    cfg.teacherAvailability.put("Bob", new ArrayList<>(List.of("Mon 9-10")));
+    assertIssue(cfg, Kind.STAFF_OVERLOADED, "all teachers");
+  }
+
+  private static void assertIssue(Config cfg, Kind kind, String subject) {
+    List<Issue> issues = FeasibilityScreen.screen(cfg);
+    for (Issue i : issues) if (i.kind == kind && i.subject.equals(subject)) return;
+    fail("expected " + kind + " " + subject + " in " + issues);
+  }
+}
@@ -0,0 +1,63 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.SolutionResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GreedySchedulerTest {
+  @Test
+  void schedulesSampleSchool() {
+    CompiledInstance inst = CompiledInstance.compile(new Config());
+    GreedyScheduler greedy = new GreedyScheduler(inst);
+    Optional<SolutionResult> res = greedy.solve();
+    assertTrue(res.isPresent(), () -> "unplaced: " + greedy.getUnplaced());
+    assertEquals(List.of(), new ScheduleVerifier(inst).verify(res.get()));
+    assertEquals(inst.numCourses, res.get().assignments.size());
+  }
+
+  @Test
+  void schedulesWithinTightLimits() {
+    CompiledInstance inst = CompiledInstance.compile(TestSchools.tiny(1, 1));
+    Optional<SolutionResult> res = new GreedyScheduler(inst).solve();
+    assertTrue(res.isPresent());
+    assertTrue(new ScheduleVerifier(inst).isValid(res.get()));
+  }
+
+  @Test
+  void reportsCoursesItCannotPlace() {
+    Config cfg = TestSchools.tiny();
+    cfg.teacherQualifications.put("Bob", new ArrayList<>(List.of("Math", "AP Calc")));
+    GreedyScheduler greedy = new GreedyScheduler(cfg);
+    assertFalse(greedy.solve().isPresent());
+    assertEquals(List.of("Physics"), greedy.getUnplaced());
+
+    // the partial schedule keeps what it placed, and every placement is valid on its own
+    SolutionResult partial = greedy.schedule();
+    assertEquals(2, partial.assignments.size());
+    CompiledInstance inst = CompiledInstance.compile(cfg);
+    for (ScheduleVerifier.Violation v : new ScheduleVerifier(inst).verify(partial)) {
+      assertEquals(ScheduleVerifier.Rule.COURSE_COUNT, v.rule, v.toString());
+    }
+  }
+
+  @Test
+  void reportsNoSearchBranches() {
+    GreedyScheduler greedy = new GreedyScheduler(TestSchools.tiny());
+    greedy.solve();
+    assertEquals(0, greedy.getSolveStats().branches);
+    assertTrue(greedy.getSolveStats().solutionInfo.contains("3 of 3 courses placed"),
+      greedy.getSolveStats().solutionInfo);
+  }
+
+  @Test
+  void rejectsMultiSessionCourses() {
+    Config cfg = TestSchools.tiny();
+    cfg.courseSessions.put("Math", 2);
+    assertThrows(IllegalArgumentException.class, () -> new GreedyScheduler(cfg).solve());
+  }
+}
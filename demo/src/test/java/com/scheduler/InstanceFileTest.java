@@ -0,0 +1,108 @@
+package com.scheduler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstanceFileTest {
+  private static final String HEADER = "slot,Mon 8-9\nroom,R1,A,standard\nteacher,T\ncourse,C\n";
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void roundTripsSampleSchool() throws IOException {
+    assertSameInstance(CompiledInstance.compile(new Config()), roundTrip(new Config()));
+  }
+
+  @Test
+  void roundTripsQuotedNamesAndSessions() throws IOException {
+    Config cfg = TestSchools.tiny();
+    cfg.requiredPrepPeriods.put("Bob", 1);
+    cfg.courseSessions.put("Physics", 2);
+    cfg.courseSessionLength.put("Physics", 2);
+    cfg.roomBuildings.put("Lab 1", "North, East wing");
+    CompiledInstance back = roundTrip(cfg);
+    assertSameInstance(CompiledInstance.compile(cfg), back);
+    assertEquals("North, East wing", back.buildingNames[back.roomBuilding[2]]);
+  }
+
+  @Test
+  void readsFromBufferPosition() throws IOException {
+    ByteBuffer buf = ByteBuffer.wrap(("ignored\n" + HEADER).getBytes(StandardCharsets.UTF_8));
+    buf.position("ignored\n".length());
+    CompiledInstance inst = InstanceFile.read(buf, "test");
+    assertArrayEquals(new String[] {"C"}, inst.courses);
+    assertEquals("ignored\n".length(), buf.position());
+  }
+
+  @Test
+  void rejectsZeroAndOverflowingNumbers() {
+    assertRejected(HEADER + "sessions,C,0\n", "at least 1");
+    assertRejected(HEADER + "sessions,C,1,0\n", "at least 1");
+    assertRejected(HEADER + "limits,0,5\n", "at least 1");
+    assertRejected(HEADER + "sessions,C,4294967297\n", "out of range");
+    assertRejected(HEADER + "limits,3,x\n", "expected a number");
+  }
+
+  @Test
+  void rejectsUnknownReferences() {
+    assertRejected(HEADER + "qualified,T,Nope\n", "unknown course Nope");
+    assertRejected(HEADER + "teacher,T\n", "duplicate teacher");
+    assertRejected(HEADER + "lunch,Mon\n", "unknown record type");
+  }
+
+  private CompiledInstance roundTrip(Config cfg) throws IOException {
+    Path file = dir.resolve("instance.txt");
+    InstanceFile.write(cfg, file);
+    CompiledInstance fromFile = InstanceFile.read(file);
+    CompiledInstance fromBytes = InstanceFile.read(ByteBuffer.wrap(Files.readAllBytes(file)), "bytes");
+    assertSameInstance(fromFile, fromBytes);
+    return fromFile;
+  }
+
+  private static void assertRejected(String text, String message) {
+    IOException e = assertThrows(IOException.class,
+      () -> InstanceFile.read(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), "test"));
+    assertTrue(e.getMessage().contains(message), e.getMessage());
+  }
+
+  // Same names, ids and constraints; interned ids (room types, buildings, days) are compared by name
+  private static void assertSameInstance(CompiledInstance expected, CompiledInstance actual) {
+    assertArrayEquals(expected.teachers, actual.teachers);
+    assertArrayEquals(expected.courses, actual.courses);
+    assertArrayEquals(expected.timeSlots, actual.timeSlots);
+    assertArrayEquals(expected.rooms, actual.rooms);
+    assertArrayEquals(expected.slotHour, actual.slotHour);
+    assertArrayEquals(expected.prepPeriods, actual.prepPeriods);
+    assertArrayEquals(expected.courseSessions, actual.courseSessions);
+    assertArrayEquals(expected.sessionLength, actual.sessionLength);
+    assertEquals(expected.maxConsecutiveTeaching, actual.maxConsecutiveTeaching);
+    assertEquals(expected.maxClassesPerDay, actual.maxClassesPerDay);
+    assertTrue(Arrays.equals(expected.apCourse, actual.apCourse));
+    for (int s = 0; s < expected.numSlots; s++) {
+      assertEquals(expected.dayNames[expected.slotDay[s]], actual.dayNames[actual.slotDay[s]]);
+    }
+    for (int r = 0; r < expected.numRooms; r++) {
+      assertEquals(expected.roomTypeNames[expected.roomType[r]], actual.roomTypeNames[actual.roomType[r]]);
+      assertEquals(expected.buildingNames[expected.roomBuilding[r]], actual.buildingNames[actual.roomBuilding[r]]);
+      assertEquals(expected.roomAvail[r], actual.roomAvail[r]);
+    }
+    for (int c = 0; c < expected.numCourses; c++) {
+      assertEquals(expected.roomTypeNames[expected.courseRoomType[c]], actual.roomTypeNames[actual.courseRoomType[c]]);
+    }
+    for (int p = 0; p < expected.numTeachers; p++) {
+      assertEquals(expected.qualified[p], actual.qualified[p]);
+      assertEquals(expected.eligible[p], actual.eligible[p]);
+      assertEquals(expected.teacherAvail[p], actual.teacherAvail[p]);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.SolutionResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleFileTest {
+  @TempDir
+  Path dir;
+
+  @Test
+  void roundTripsAssignments() throws IOException {
+    SolutionResult res = new GreedyScheduler(new Config()).solve().orElseThrow();
+    ScheduleFile file = ScheduleFile.open(write(res));
+    assertEquals(res.assignments.size(), file.size());
+    assertEquals(TestSchools.rows(res), TestSchools.rows(file.toResult()));
+    assertEquals(res.assignments.get(0).teacher, file.teacher(0));
+  }
+
+  @Test
+  void roundTripsEmptySchedule() throws IOException {
+    ScheduleFile file = ScheduleFile.open(write(new SolutionResult()));
+    assertEquals(0, file.size());
+  }
+
+  @Test
+  void exportsCsvWithEscaping() throws IOException {
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "Physics", "Mon 9-10", "Lab \"B\", 2nd floor", "Bob");
+    Path csv = dir.resolve("schedule.csv");
+    ScheduleFile.open(write(res)).exportCsv(csv);
+    assertEquals(List.of(
+      "course,slot,room,teacher",
+      "Math,Mon 8-9,Room 1,Alice",
+      "Physics,Mon 9-10,\"Lab \"\"B\"\", 2nd floor\",Bob"), lines(csv));
+  }
+
+  @Test
+  void exportsICalendarEvents() throws IOException {
+    Path ics = dir.resolve("schedule.ics");
+    ScheduleFile.open(write(TestSchools.valid())).exportICal(ics, LocalDate.of(2026, 10, 14));
+    List<String> lines = lines(ics);
+    assertEquals("BEGIN:VCALENDAR", lines.get(0));
+    assertEquals("END:VCALENDAR", lines.get(lines.size() - 1));
+    assertEquals(3, lines.stream().filter(l -> l.equals("BEGIN:VEVENT")).count());
+    // Mon 8-9 in the week of Wednesday 2026-10-14
+    assertTrue(lines.contains("DTSTART:20261012T080000"), lines.toString());
+    assertTrue(lines.contains("DTEND:20261012T090000"), lines.toString());
+    assertTrue(lines.contains("SUMMARY:AP Calc"), lines.toString());
+  }
+
+  @Test
+  void rejectsTruncatedFiles() throws IOException {
+    byte[] all = Files.readAllBytes(write(TestSchools.valid()));
+    Path cut = dir.resolve("cut.sched");
+    for (int n = 0; n < all.length; n++) {
+      Files.write(cut, Arrays.copyOf(all, n));
+      assertThrows(IOException.class, () -> ScheduleFile.open(cut), "truncated to " + n + " bytes");
+    }
+  }
+
+  @Test
+  void rejectsCorruptCountsAndIds() throws IOException {
+    byte[] all = Files.readAllBytes(write(TestSchools.valid()));
+    // string count, assignment count, first string length, first tuple id
+    int firstTuple = all.length - 4 * 4 * 3;
+    for (int offset : new int[] {4, 8, 12, firstTuple}) {
+      for (int value : new int[] {-1, Integer.MAX_VALUE}) {
+        byte[] bad = all.clone();
+        ByteBuffer.wrap(bad).putInt(offset, value);
+        Path file = dir.resolve("bad.sched");
+        Files.write(file, bad);
+        IOException e = assertThrows(IOException.class, () -> ScheduleFile.open(file));
+        assertTrue(e.getMessage().endsWith(": corrupt"), e.getMessage());
+      }
+    }
+  }
+
+  private Path write(SolutionResult res) throws IOException {
+    Path file = Files.createTempFile(dir, "schedule", ".sched");
+    ScheduleFile.write(res, file);
+    return file;
+  }
+
+  private static List<String> lines(Path file) throws IOException {
+    return Arrays.asList(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).split("\r\n"));
+  }
+}
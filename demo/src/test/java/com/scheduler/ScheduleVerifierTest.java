@@ -0,0 +1,145 @@
+package com.scheduler;
+
+import com.scheduler.ScheduleVerifier.Rule;
+import com.scheduler.ScheduleVerifier.Violation;
+import com.scheduler.SchedulerModel.SolutionResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleVerifierTest {
+  private final ScheduleVerifier verifier = verifier(TestSchools.tiny());
+
+  @Test
+  void acceptsValidSchedule() {
+    assertEquals(List.of(), verifier.verify(TestSchools.valid()));
+    assertTrue(verifier.isValid(TestSchools.valid()));
+  }
+
+  @Test
+  void reportsUnknownName() {
+    SolutionResult res = TestSchools.valid();
+    res.assignments.addAll(TestSchools.schedule("Art", "Tue 8-9", "Room 2", "Bob").assignments);
+    List<Violation> v = verifier.verify(res);
+    assertEquals(List.of(Rule.UNKNOWN_NAME), rules(v));
+    assertEquals(3, v.get(0).index);
+  }
+
+  @Test
+  void reportsMissingCourse() {
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "AP Calc", "Mon 9-10", "Room 1", "Alice");
+    List<Violation> v = verifier.verify(res);
+    assertEquals(List.of(Rule.COURSE_COUNT), rules(v));
+    assertEquals(-1, v.get(0).index);
+  }
+
+  @Test
+  void reportsUnqualifiedTeacher() {
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "AP Calc", "Mon 9-10", "Room 1", "Alice",
+      "Physics", "Tue 8-9", "Lab 1", "Alice");
+    assertEquals(List.of(Rule.NOT_ELIGIBLE), rules(verifier.verify(res)));
+  }
+
+  @Test
+  void reportsUncertifiedTeacherForApCourse() {
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "AP Calc", "Mon 9-10", "Room 1", "Bob",
+      "Physics", "Mon 10-11", "Lab 1", "Bob");
+    assertEquals(List.of(Rule.NOT_ELIGIBLE), rules(verifier.verify(res)));
+  }
+
+  @Test
+  void reportsWrongRoomType() {
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "AP Calc", "Mon 9-10", "Room 1", "Alice",
+      "Physics", "Mon 9-10", "Room 2", "Bob");
+    assertEquals(List.of(Rule.ROOM_TYPE), rules(verifier.verify(res)));
+  }
+
+  @Test
+  void reportsUnavailableTeacher() {
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Tue 9-10", "Room 1", "Alice",
+      "AP Calc", "Mon 9-10", "Room 1", "Alice",
+      "Physics", "Mon 9-10", "Lab 1", "Bob");
+    List<Violation> v = verifier.verify(res);
+    assertEquals(List.of(Rule.TEACHER_UNAVAILABLE), rules(v));
+    assertEquals(0, v.get(0).index);
+  }
+
+  @Test
+  void reportsUnavailableRoom() {
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Mon 9-10", "Room 1", "Alice",
+      "AP Calc", "Mon 10-11", "Room 1", "Alice",
+      "Physics", "Mon 8-9", "Lab 1", "Bob");
+    assertEquals(List.of(Rule.ROOM_UNAVAILABLE), rules(verifier.verify(res)));
+  }
+
+  @Test
+  void reportsTeacherConflictWithHolder() {
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "AP Calc", "Mon 8-9", "Room 2", "Alice",
+      "Physics", "Mon 9-10", "Lab 1", "Bob");
+    List<Violation> v = verifier.verify(res);
+    assertEquals(List.of(Rule.TEACHER_CONFLICT), rules(v));
+    assertEquals(1, v.get(0).index);
+    assertEquals(0, v.get(0).other);
+  }
+
+  @Test
+  void reportsRoomConflictWithHolder() {
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Bob",
+      "AP Calc", "Mon 8-9", "Room 1", "Alice",
+      "Physics", "Mon 9-10", "Lab 1", "Bob");
+    List<Violation> v = verifier.verify(res);
+    assertEquals(List.of(Rule.ROOM_CONFLICT), rules(v));
+    assertEquals(1, v.get(0).index);
+    assertEquals(0, v.get(0).other);
+  }
+
+  @Test
+  void reportsDailyLimit() {
+    ScheduleVerifier oneADay = verifier(TestSchools.tiny(3, 1));
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "AP Calc", "Mon 10-11", "Room 1", "Alice",
+      "Physics", "Mon 9-10", "Lab 1", "Bob");
+    assertEquals(List.of(Rule.DAILY_LIMIT), rules(oneADay.verify(res)));
+    assertTrue(oneADay.isValid(TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "AP Calc", "Tue 8-9", "Room 1", "Alice",
+      "Physics", "Mon 9-10", "Lab 1", "Bob")));
+  }
+
+  @Test
+  void reportsConsecutiveRun() {
+    ScheduleVerifier noRuns = verifier(TestSchools.tiny(1, 3));
+    assertEquals(List.of(Rule.CONSECUTIVE), rules(noRuns.verify(TestSchools.valid())));
+    assertTrue(noRuns.isValid(TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "AP Calc", "Mon 10-11", "Room 1", "Alice",
+      "Physics", "Mon 9-10", "Lab 1", "Bob")));
+  }
+
+  private static ScheduleVerifier verifier(Config cfg) {
+    return new ScheduleVerifier(CompiledInstance.compile(cfg));
+  }
+
+  private static List<Rule> rules(List<Violation> violations) {
+    List<Rule> out = new ArrayList<>();
+    for (Violation v : violations) out.add(v.rule);
+    return out;
+  }
+}
@@ -0,0 +1,60 @@
+package com.scheduler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchedulerServiceTest {
+  @TempDir
+  Path dir;
+
+  @Test
+  void fullQueueAnswers429WithRetryAfter() throws Exception {
+    SchedulerService service = new SchedulerService(0, 1, 1, SolverOptions.defaults().timeLimit(5));
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      service.start();
+      // one task holds the only solver thread, a second takes the only queue slot
+      service.solvers.execute(() -> {
+        started.countDown();
+        await(release);
+      });
+      service.solvers.execute(() -> await(release));
+      started.await();
+
+      Path file = dir.resolve("sample.txt");
+      InstanceFile.write(new Config(), file);
+      HttpResponse<String> res = HttpClient.newHttpClient().send(
+        HttpRequest.newBuilder(new URI("http", null, InetAddress.getLoopbackAddress().getHostAddress(),
+          service.getPort(), "/jobs", null, null))
+          .POST(HttpRequest.BodyPublishers.ofFile(file)).build(),
+        HttpResponse.BodyHandlers.ofString());
+
+      assertEquals(429, res.statusCode());
+      assertTrue(res.body().contains("queue full"), res.body());
+      // two jobs ahead of one solver thread, 5 s each
+      assertEquals("10", res.headers().firstValue("Retry-After").orElse(null));
+    } finally {
+      release.countDown();
+      service.stop();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.scheduler;
+
+import com.google.ortools.sat.CpSolverStatus;
+import com.scheduler.SchedulerModel.BuildStats;
+import com.scheduler.SchedulerModel.SolutionResult;
+import com.scheduler.SchedulerModel.SolveStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionCacheTest {
+  @TempDir
+  Path dir;
+
+  @Test
+  void encodesAndDecodes() throws IOException {
+    SolutionResult res = TestSchools.schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "Physique", "Mon 9-10", "Salle \u00e9t\u00e9", "B\u00f6b");
+    assertEquals(TestSchools.rows(res), TestSchools.rows(SolutionCache.decode(SolutionCache.encode(res))));
+    assertEquals(List.of(), TestSchools.rows(SolutionCache.decode(SolutionCache.encode(new SolutionResult()))));
+  }
+
+  @Test
+  void rejectsForeignData() {
+    assertThrows(IOException.class, () -> SolutionCache.decode(new byte[] {0, 0, 0, 1, 0, 0, 0, 0}));
+  }
+
+  @Test
+  void servesEntriesFromDiskAfterRestart() throws IOException {
+    new SolutionCache(dir, 1 << 20, 1 << 20).put("key", TestSchools.valid());
+    Optional<SolutionResult> back = new SolutionCache(dir, 1 << 20, 1 << 20).get("key");
+    assertTrue(back.isPresent());
+    assertEquals(TestSchools.rows(TestSchools.valid()), TestSchools.rows(back.get()));
+  }
+
+  @Test
+  void solvesOnceThenHits() throws IOException {
+    SolutionCache cache = new SolutionCache(dir, 1 << 20, 1 << 20);
+    AtomicInteger solves = new AtomicInteger();
+    Config cfg = TestSchools.tiny();
+    Optional<SolutionResult> first = cache.solve(cfg, "GREEDY", inst -> {
+      solves.incrementAndGet();
+      return new GreedyScheduler(inst);
+    });
+    Optional<SolutionResult> second = cache.solve(TestSchools.tiny(), "GREEDY", inst -> {
+      solves.incrementAndGet();
+      return new GreedyScheduler(inst);
+    });
+    assertEquals(1, solves.get());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(TestSchools.rows(first.orElseThrow()), TestSchools.rows(second.orElseThrow()));
+  }
+
+  @Test
+  void doesNotStoreTimeLimitedIncumbents() throws IOException {
+    SolutionCache cache = new SolutionCache(dir, 1 << 20, 1 << 20);
+    AtomicInteger solves = new AtomicInteger();
+    for (int i = 0; i < 2; i++) {
+      cache.solve(TestSchools.tiny(), "SCHEDULER_MODEL DENSE optimize", inst -> {
+        solves.incrementAndGet();
+        return fixed(CpSolverStatus.FEASIBLE, 5, 3);
+      });
+    }
+    assertEquals(2, solves.get());
+    assertEquals(0, cache.getHits());
+    assertTrue(cache.solve(TestSchools.tiny(), "SCHEDULER_MODEL DENSE optimize",
+      inst -> fixed(CpSolverStatus.OPTIMAL, 5, 5)).isPresent());
+    assertTrue(cache.get(SolutionCache.canonicalKey(TestSchools.tiny(), "SCHEDULER_MODEL DENSE optimize")).isPresent());
+  }
+
+  @Test
+  void resolvesWhenCachedScheduleNoLongerFits() throws IOException {
+    SolutionCache cache = new SolutionCache(dir, 1 << 20, 1 << 20);
+    Config cfg = TestSchools.tiny();
+    // an entry that breaks the instance's rules, as if written under other constraints
+    cache.put(SolutionCache.canonicalKey(cfg, "GREEDY"), TestSchools.schedule("Math", "Tue 9-10", "Room 1", "Alice"));
+    Optional<SolutionResult> res = cache.solve(cfg, "GREEDY", GreedyScheduler::new);
+    assertEquals(0, cache.getHits());
+    assertTrue(new ScheduleVerifier(CompiledInstance.compile(cfg)).isValid(res.orElseThrow()));
+  }
+
+  @Test
+  void keysOnEveryConfigFieldAndTheSolver() {
+    String key = SolutionCache.canonicalKey(TestSchools.tiny(), "GREEDY");
+    assertEquals(key, SolutionCache.canonicalKey(TestSchools.tiny(), "GREEDY"));
+    assertNotEquals(key, SolutionCache.canonicalKey(TestSchools.tiny(), "SCHEDULER_MODEL DENSE feasibility"));
+    assertNotEquals(key, SolutionCache.canonicalKey(TestSchools.tiny(3, 3), "GREEDY"));
+
+    Config sessions = TestSchools.tiny();
+    sessions.courseSessions.put("Math", 2);
+    assertNotEquals(key, SolutionCache.canonicalKey(sessions, "GREEDY"));
+    Config length = TestSchools.tiny();
+    length.courseSessionLength.put("Math", 2);
+    assertNotEquals(key, SolutionCache.canonicalKey(length, "GREEDY"));
+
+    // list values are sets: order does not matter
+    Config reordered = TestSchools.tiny();
+    reordered.teacherQualifications.put("Bob", new ArrayList<>(List.of("AP Calc", "Physics", "Math")));
+    assertEquals(key, SolutionCache.canonicalKey(reordered, "GREEDY"));
+  }
+
+  // A solver that returns valid() with the given status, objective and bound
+  private static ScheduleSolver fixed(CpSolverStatus status, double objective, double bound) {
+    SolveStats stats = new SolveStats(status, 1, 0, 0, 0, objective, bound, "fixed");
+    return new ScheduleSolver() {
+      @Override
+      public Optional<SolutionResult> solve() {
+        SolutionResult res = TestSchools.valid();
+        res.stats = stats;
+        return Optional.of(res);
+      }
+
+      @Override
+      public BuildStats getBuildStats() {
+        return null;
+      }
+
+      @Override
+      public SolveStats getSolveStats() {
+        return stats;
+      }
+    };
+  }
+}
@@ -0,0 +1,73 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.Assignment;
+import com.scheduler.SchedulerModel.SolutionResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Small hand-checked instances shared by the tests
+final class TestSchools {
+  static final String[] SLOTS = {"Mon 8-9", "Mon 9-10", "Mon 10-11", "Mon 11-12", "Tue 8-9", "Tue 9-10"};
+
+  private TestSchools() {
+  }
+
+  // Two teachers, three courses, two standard rooms and a lab over two days:
+  //   Alice teaches Math and AP Calc (AP certified), and is away Tue 9-10
+  //   Bob teaches Math and Physics, and is qualified for AP Calc but not certified
+  //   Physics needs the lab, which is closed Mon 8-9
+  static Config tiny(int maxConsecutiveTeaching, int maxClassesPerDay) {
+    Config cfg = new Config(new String[] {"Alice", "Bob"}, new String[] {"Math", "Physics", "AP Calc"}, SLOTS,
+      new String[] {"Room 1", "Room 2", "Lab 1"}, maxConsecutiveTeaching, maxClassesPerDay);
+    cfg.roomBuildings.put("Room 1", "A");
+    cfg.roomBuildings.put("Room 2", "A");
+    cfg.roomBuildings.put("Lab 1", "B");
+    cfg.roomTypes.put("Room 1", "standard");
+    cfg.roomTypes.put("Room 2", "standard");
+    cfg.roomTypes.put("Lab 1", "science_lab");
+    cfg.courseRoomRequirements.put("Math", "standard");
+    cfg.courseRoomRequirements.put("Physics", "science_lab");
+    cfg.courseRoomRequirements.put("AP Calc", "standard");
+    cfg.apCourses.add("AP Calc");
+    cfg.teacherQualifications.put("Alice", new ArrayList<>(List.of("Math", "AP Calc")));
+    cfg.teacherQualifications.put("Bob", new ArrayList<>(List.of("Math", "Physics", "AP Calc")));
+    cfg.apCertified.put("Alice", new ArrayList<>(List.of("AP Calc")));
+    List<String> all = Arrays.asList(SLOTS);
+    cfg.teacherAvailability.put("Alice", new ArrayList<>(all.subList(0, 5)));
+    cfg.teacherAvailability.put("Bob", new ArrayList<>(all));
+    cfg.roomAvailability.put("Room 1", new ArrayList<>(all));
+    cfg.roomAvailability.put("Room 2", new ArrayList<>(all));
+    cfg.roomAvailability.put("Lab 1", new ArrayList<>(all.subList(1, 6)));
+    return cfg;
+  }
+
+  static Config tiny() {
+    return tiny(2, 3);
+  }
+
+  // A valid schedule for tiny()
+  static SolutionResult valid() {
+    return schedule(
+      "Math", "Mon 8-9", "Room 1", "Alice",
+      "AP Calc", "Mon 9-10", "Room 1", "Alice",
+      "Physics", "Mon 9-10", "Lab 1", "Bob");
+  }
+
+  // Assignments from course, slot, room, teacher quadruples
+  static SolutionResult schedule(String... fields) {
+    SolutionResult res = new SolutionResult();
+    for (int i = 0; i < fields.length; i += 4) {
+      res.assignments.add(new Assignment(fields[i], fields[i + 1], fields[i + 2], fields[i + 3]));
+    }
+    return res;
+  }
+
+  // "course|slot|room|teacher" per assignment, in order, for comparing schedules
+  static List<String> rows(SolutionResult res) {
+    List<String> out = new ArrayList<>();
+    for (Assignment a : res.assignments) out.add(a.course + "|" + a.slot + "|" + a.room + "|" + a.teacher);
+    return out;
+  }
+}
@@ -0,0 +1,92 @@
+package com.scheduler;
+
+import com.scheduler.SchedulerModel.SolutionResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimetableIndexTest {
+  // ids in tiny(): Alice 0, Bob 1; Math 0, Physics 1, AP Calc 2; Room 1 0, Room 2 1, Lab 1 2;
+  // slots in SLOTS order, Mon 0, Tue 1
+  private final TimetableIndex idx =
+    new TimetableIndex(CompiledInstance.compile(TestSchools.tiny()), TestSchools.valid());
+
+  @Test
+  void resolvesNames() {
+    assertEquals(1, idx.teacherId("Bob"));
+    assertEquals(2, idx.courseId("AP Calc"));
+    assertEquals(4, idx.slotId("Tue 8-9"));
+    assertEquals(2, idx.roomId("Lab 1"));
+    assertEquals(-1, idx.teacherId("Nobody"));
+  }
+
+  @Test
+  void looksUpPlacements() {
+    assertEquals(0, idx.courseOfTeacher(0, 0));
+    assertEquals(2, idx.courseOfTeacher(0, 1));
+    assertEquals(1, idx.courseOfTeacher(1, 1));
+    assertEquals(-1, idx.courseOfTeacher(1, 0));
+    assertEquals(2, idx.courseInRoom(0, 1));
+    assertEquals(-1, idx.courseInRoom(1, 0));
+    assertEquals(1, idx.slotOf(1));
+    assertEquals(2, idx.roomOf(1));
+    assertEquals(0, idx.teacherOf(2));
+  }
+
+  @Test
+  void countsLoadPerTeacherAndDay() {
+    assertEquals(2, idx.teacherLoad(0));
+    assertEquals(2, idx.teacherLoad(0, 0));
+    assertEquals(0, idx.teacherLoad(0, 1));
+    assertEquals(1, idx.teacherLoad(1, 0));
+  }
+
+  @Test
+  void tracksFreeRoomsAndTeachers() {
+    assertFalse(idx.isRoomFree(0, 0), "used");
+    assertTrue(idx.isRoomFree(1, 0));
+    assertFalse(idx.isRoomFree(2, 0), "closed");
+    assertFalse(idx.isTeacherFree(0, 5), "away");
+    assertTrue(idx.isTeacherFree(1, 0));
+
+    assertEquals(1, idx.nextFreeRoom(0, 0));
+    assertEquals(-1, idx.nextFreeRoom(0, 2));
+    assertEquals(2, idx.nextFreeRoomFor(1, 2, 0));
+
+    BitSet free = new BitSet();
+    idx.freeTeachers(2, free);
+    assertEquals(BitSet.valueOf(new long[] {0b11}), free);
+    idx.freeRooms(1, free);
+    assertEquals(BitSet.valueOf(new long[] {0b10}), free);
+  }
+
+  @Test
+  void findsSubstitutes() {
+    // Alice teaches Math at Mon 8-9; Bob is free and qualified
+    assertEquals(1, idx.nextSubstitute(0, 0, 0));
+    // Bob is free but not AP certified
+    assertEquals(-1, idx.nextSubstitute(2, 0, 0));
+  }
+
+  @Test
+  void indexesEveryPlacementOfMultiSessionCourses() {
+    Config cfg = TestSchools.tiny();
+    cfg.courseSessions.put("Physics", 2);
+    SolutionResult res = TestSchools.valid();
+    res.assignments.addAll(TestSchools.schedule("Physics", "Mon 11-12", "Lab 1", "Bob").assignments);
+    TimetableIndex multi = new TimetableIndex(CompiledInstance.compile(cfg), res);
+    assertEquals(1, multi.courseInRoom(2, 1));
+    assertEquals(1, multi.courseInRoom(2, 3));
+    assertEquals(2, multi.teacherLoad(1, 0));
+    assertEquals(3, multi.slotOf(1), "last placement listed");
+  }
+
+  @Test
+  void rejectsUnknownNames() {
+    SolutionResult res = TestSchools.schedule("Art", "Mon 8-9", "Room 1", "Alice");
+    assertThrows(IllegalArgumentException.class,
+      () -> new TimetableIndex(CompiledInstance.compile(TestSchools.tiny()), res));
+  }
+}